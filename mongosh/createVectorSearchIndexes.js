@@ -0,0 +1,25 @@
+// Atlas Vector Search index definitions for content_vectors.
+// numDimensions of vector_index_short_cosine must match vector.search.short-dimensions, and
+// vector_index_cosine must match the embedding model (embedding.hashing.dimensions for the hashing provider).
+// The filter fields must cover everything VectorSearchFilter puts into the $vectorSearch filter.
+const filterFields = [
+    { type: "filter", path: "model" },
+    { type: "filter", path: "type" },
+    { type: "filter", path: "status" },
+    { type: "filter", path: "visibility" },
+    { type: "filter", path: "lastEventStartTime" }
+];
+
+db.getCollection('content_vectors').createSearchIndex("vector_index_cosine", "vectorSearch", {
+    fields: [
+        { type: "vector", path: "vector", numDimensions: 3072, similarity: "cosine" },
+        ...filterFields
+    ]
+});
+
+db.getCollection('content_vectors').createSearchIndex("vector_index_short_cosine", "vectorSearch", {
+    fields: [
+        { type: "vector", path: "shortVector", numDimensions: 256, similarity: "cosine" },
+        ...filterFields
+    ]
+});
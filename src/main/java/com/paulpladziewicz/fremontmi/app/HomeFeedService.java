@@ -0,0 +1,167 @@
+package com.paulpladziewicz.fremontmi.app;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentService;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.content.Event;
+import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.TagUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Composes everything the home page shows in one call. Each section is forked onto the task
+ * executor and joined against its own deadline; a section that fails or runs late is cancelled
+ * and reported in {@code unavailable} rather than holding up the rest. A feed missing sections is
+ * cached for a shorter TTL, so a slow source is retried soon without every request recomposing.
+ */
+@Service
+public class HomeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomeFeedService.class);
+
+    private final ContentService contentService;
+    private final TagService tagService;
+    private final Executor taskExecutor;
+
+    private final ReentrantLock composeLock = new ReentrantLock();
+
+    private volatile CachedFeed cached;
+
+    @Value("${home.feed.items-per-section:6}")
+    private int itemsPerSection;
+
+    @Value("${home.feed.popular-tags:15}")
+    private int popularTags;
+
+    @Value("${home.feed.branch-timeout:PT0.5S}")
+    private Duration branchTimeout;
+
+    @Value("${home.feed.cache-ttl:PT30S}")
+    private Duration cacheTtl;
+
+    @Value("${home.feed.partial-cache-ttl:PT5S}")
+    private Duration partialCacheTtl;
+
+    public HomeFeedService(ContentService contentService, TagService tagService, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.contentService = contentService;
+        this.tagService = tagService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public HomeFeed getHomeFeed() {
+        CachedFeed current = cached;
+        if (current != null && current.isFresh()) {
+            return current.feed();
+        }
+
+        // One request recomposes; while it does, the rest serve the expired feed instead of queuing.
+        // Only a cold start, with nothing to serve yet, waits for the first compose
+        if (current != null && !composeLock.tryLock()) {
+            return current.feed();
+        }
+        if (current == null) {
+            composeLock.lock();
+        }
+        try {
+            current = cached;
+            if (current != null && current.isFresh()) {
+                return current.feed();
+            }
+
+            HomeFeed feed = compose();
+            Duration ttl = feed.unavailable().isEmpty() ? cacheTtl : partialCacheTtl;
+            cached = new CachedFeed(feed, System.nanoTime() + ttl.toNanos());
+            return feed;
+        } finally {
+            composeLock.unlock();
+        }
+    }
+
+    private HomeFeed compose() {
+        long deadline = System.nanoTime() + branchTimeout.toNanos();
+        List<String> unavailable = new ArrayList<>();
+
+        FutureTask<List<Content>> events = fork(this::findUpcomingEvents);
+        FutureTask<List<Content>> groups = fork(() -> contentService.findNewestByType(ContentType.GROUP, itemsPerSection));
+        FutureTask<List<Content>> businesses = fork(() -> contentService.findNewestByType(ContentType.BUSINESS, itemsPerSection));
+        FutureTask<List<Content>> neighborServices = fork(() -> contentService.findNewestByType(ContentType.NEIGHBOR_SERVICES_PROFILE, itemsPerSection));
+        FutureTask<List<TagUsage>> tags = fork(() -> tagService.getGlobalPopularTags(popularTags));
+
+        return new HomeFeed(
+                join("events", events, deadline, unavailable),
+                join("groups", groups, deadline, unavailable),
+                join("businesses", businesses, deadline, unavailable),
+                join("neighborServices", neighborServices, deadline, unavailable),
+                join("popularTags", tags, deadline, unavailable),
+                unavailable,
+                LocalDateTime.now()
+        );
+    }
+
+    // The query only narrows to public, active events with a day still ahead; order them by that day
+    private List<Content> findUpcomingEvents() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Content> events = new ArrayList<>(contentService.findUpcomingEvents(itemsPerSection));
+        events.forEach(content -> {
+            if (content.getDetail() instanceof Event event) {
+                event.selectNextAvailableDay(now);
+            }
+        });
+
+        events.removeIf(content -> !(content.getDetail() instanceof Event event) || event.getNextAvailableDayEvent() == null);
+        events.sort(Comparator.comparing(content -> ((Event) content.getDetail()).getNextAvailableDayEvent().getStartTime()));
+        return events;
+    }
+
+    private <T> FutureTask<T> fork(Callable<T> branch) {
+        FutureTask<T> task = new FutureTask<>(branch);
+        taskExecutor.execute(task);
+        return task;
+    }
+
+    // Every branch started at the same time, so one shared deadline is each branch's own timeout
+    private <T> List<T> join(String name, FutureTask<List<T>> task, long deadline, List<String> unavailable) {
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Home feed section '{}' timed out after {}", name, branchTimeout);
+        } catch (ExecutionException e) {
+            logger.error("Home feed section '{}' failed", name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        task.cancel(true);
+        unavailable.add(name);
+        return List.of();
+    }
+
+    public record HomeFeed(List<Content> events, List<Content> groups, List<Content> businesses,
+                           List<Content> neighborServices, List<TagUsage> popularTags,
+                           List<String> unavailable, LocalDateTime generatedAt) {
+    }
+
+    private record CachedFeed(HomeFeed feed, long expiresAt) {
+        boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.paulpladziewicz.fremontmi.app;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentService;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.discovery.AutocompleteService;
+import com.paulpladziewicz.fremontmi.discovery.SitemapService;
+import com.paulpladziewicz.fremontmi.discovery.TagService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs once the server is listening: parses every template, fills the caches the first visitors
+ * would otherwise fill, then replays the busiest pages locally so the JIT has compiled them. The
+ * health check reports 503 until this finishes, which keeps the load balancer from routing to a
+ * freshly deployed instance while it is still cold.
+ */
+@Service
+public class WarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    public static final String WARMUP_HEADER = "X-Warmup";
+
+    private static final List<String> HOT_PATHS = List.of("/", "/groups", "/events", "/businesses", "/neighbor-services", "/api/events", "/api/groups", "/api/home");
+
+    private final ITemplateEngine templateEngine;
+    private final ContentService contentService;
+    private final TagService tagService;
+    private final AutocompleteService autocompleteService;
+    private final SitemapService sitemapService;
+
+    // Lets synthetic requests past the page cache without letting anyone else do the same
+    private final String warmupToken = UUID.randomUUID().toString();
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.request-iterations:50}")
+    private int requestIterations;
+
+    @Value("${warmup.detail-pages-per-type:3}")
+    private int detailPagesPerType;
+
+    private volatile boolean ready;
+
+    public WarmupService(ITemplateEngine templateEngine, ContentService contentService, TagService tagService, AutocompleteService autocompleteService, SitemapService sitemapService) {
+        this.templateEngine = templateEngine;
+        this.contentService = contentService;
+        this.tagService = tagService;
+        this.autocompleteService = autocompleteService;
+        this.sitemapService = sitemapService;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isWarmupRequest(HttpServletRequest request) {
+        return warmupToken.equals(request.getHeader(WARMUP_HEADER));
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(ApplicationReadyEvent event) {
+        if (!enabled) {
+            ready = true;
+            return;
+        }
+
+        int port = event.getApplicationContext().getEnvironment().getProperty("local.server.port", Integer.class, 8080);
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long start = System.currentTimeMillis();
+
+        try {
+            runStage(timings, "templates", this::parseTemplates);
+            List<String> detailPaths = new ArrayList<>();
+            runStage(timings, "caches", () -> preloadCaches(detailPaths));
+            runStage(timings, "requests", () -> replayRequests(port, detailPaths));
+        } finally {
+            ready = true;
+            logger.info("Warmup finished in {} ms {}", System.currentTimeMillis() - start, timings);
+        }
+    }
+
+    private void runStage(Map<String, Long> timings, String stage, Runnable work) {
+        long start = System.currentTimeMillis();
+        try {
+            work.run();
+        } catch (Exception e) {
+            logger.warn("Warmup stage {} failed: {}", stage, e.getMessage());
+        }
+        timings.put(stage, System.currentTimeMillis() - start);
+        logger.info("Warmup stage {} took {} ms", stage, timings.get(stage));
+    }
+
+    // processThrottled parses and caches the template without evaluating any expressions
+    private void parseTemplates() {
+        Resource[] templates;
+        try {
+            templates = new PathMatchingResourcePatternResolver().getResources("classpath*:/templates/**/*.html");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list templates", e);
+        }
+
+        int parsed = 0;
+        for (Resource template : templates) {
+            String name = templateName(template);
+            if (name == null) {
+                continue;
+            }
+
+            try {
+                templateEngine.processThrottled(name, new Context());
+                parsed++;
+            } catch (Exception e) {
+                logger.warn("Could not parse template {}: {}", name, e.getMessage());
+            }
+        }
+        logger.info("Parsed {} of {} templates", parsed, templates.length);
+    }
+
+    private String templateName(Resource template) {
+        try {
+            String url = template.getURL().toString();
+            int start = url.lastIndexOf("/templates/");
+            return start < 0 ? null : url.substring(start + "/templates/".length(), url.length() - ".html".length());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void preloadCaches(List<String> detailPaths) {
+        tagService.refreshTagIndexes();
+        tagService.getGlobalPopularTags(15);
+        autocompleteService.rebuild();
+        sitemapService.regenerate();
+
+        contentService.findEvents(0).getContent().stream()
+                .limit(detailPagesPerType)
+                .map(Content::getPathname)
+                .forEach(detailPaths::add);
+
+        for (ContentType type : ContentType.values()) {
+            tagService.getPopularTagsByContentType(type.name(), 15);
+            if (type != ContentType.EVENT) {
+                contentService.findByType(type, 0).getContent().stream()
+                        .limit(detailPagesPerType)
+                        .map(Content::getPathname)
+                        .forEach(detailPaths::add);
+            }
+        }
+    }
+
+    private void replayRequests(int port, List<String> detailPaths) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        List<String> paths = new ArrayList<>(HOT_PATHS);
+        paths.addAll(detailPaths);
+
+        int failures = 0;
+        for (int i = 0; i < requestIterations; i++) {
+            for (String path : paths) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                        .header(WARMUP_HEADER, warmupToken)
+                        .header("Accept-Encoding", "gzip")
+                        .timeout(Duration.ofSeconds(10))
+                        .build();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500) {
+                        failures++;
+                    }
+                } catch (IOException e) {
+                    failures++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        logger.info("Replayed {} paths {} times, {} failures", paths.size(), requestIterations, failures);
+    }
+}
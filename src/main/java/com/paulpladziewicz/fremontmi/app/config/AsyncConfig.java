@@ -1,7 +1,11 @@
 package com.paulpladziewicz.fremontmi.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -12,13 +16,28 @@ import java.util.concurrent.Executor;
 public class AsyncConfig {
 
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor taskExecutor(ExecutorMetrics executorMetrics) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(50);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("async-");
+        executor.setTaskDecorator(executorMetrics.decorator("taskExecutor"));
         executor.initialize();
         return executor;
     }
+
+    // With spring.threads.virtual.enabled each task gets its own virtual thread; the limit only
+    // protects downstream services (OpenAI, SMTP) and makes callers wait instead of rejecting
+    @Bean(name = "taskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualTaskExecutor(ExecutorMetrics executorMetrics,
+                                        @Value("${async.virtual.concurrency-limit:200}") int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskDecorator(executorMetrics.decorator("taskExecutor"));
+        return executor;
+    }
 }
@@ -0,0 +1,231 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import com.paulpladziewicz.fremontmi.user.CustomUserDetails;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the session attribute map that JdkMongoSessionConverter stores in each session's attr
+ * field. The logged-in SecurityContext, which is in nearly every session, is written field by
+ * field instead of as a JDK object graph, and plain strings are written as UTF. Any other value
+ * falls back to JDK serialization on its own, so an attribute this codec doesn't know never breaks
+ * a session.
+ *
+ * Blobs start with a magic header, and anything without it is read as a plain JDK stream, so
+ * sessions stored before this codec keep working. Instances older than this codec can't read the
+ * compact format. For a rolling deploy, ship it first with session.codec.compact-writes=false and
+ * turn writes on once every instance can read it.
+ */
+public class CompactSessionAttributeCodec implements Serializer<Object>, Deserializer<Object> {
+
+    private static final int MAGIC = 0xC553;
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_SECURITY_CONTEXT = 2;
+    private static final byte TYPE_JDK = 127;
+
+    // DataOutputStream.writeUTF is limited to 64KB, longer strings go through the JDK fallback
+    private static final int MAX_INLINE_STRING_LENGTH = 16_384;
+
+    private final boolean compactWrites;
+    private final DefaultSerializer jdkSerializer = new DefaultSerializer();
+    private final DefaultDeserializer jdkDeserializer;
+
+    public CompactSessionAttributeCodec(boolean compactWrites) {
+        this.compactWrites = compactWrites;
+        this.jdkDeserializer = new DefaultDeserializer(getClass().getClassLoader());
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream outputStream) throws IOException {
+        if (!compactWrites || !(object instanceof Map<?, ?> attributes)) {
+            jdkSerializer.serialize(object, outputStream);
+            return;
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeShort(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(attributes.size());
+
+        for (Map.Entry<?, ?> attribute : attributes.entrySet()) {
+            out.writeUTF((String) attribute.getKey());
+            writeValue(out, attribute.getValue());
+        }
+        out.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException {
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        in.mark(2);
+        int magic = (in.read() << 8) | in.read();
+        in.reset();
+
+        if (magic != MAGIC) {
+            return jdkDeserializer.deserialize(in);
+        }
+
+        DataInputStream data = new DataInputStream(in);
+        data.readShort();
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported session attribute format version " + version);
+        }
+
+        int count = data.readInt();
+        Map<String, Object> attributes = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            attributes.put(data.readUTF(), readValue(data));
+        }
+        return attributes;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String string && string.length() <= MAX_INLINE_STRING_LENGTH) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(string);
+        } else if (isCompactSecurityContext(value)) {
+            out.writeByte(TYPE_SECURITY_CONTEXT);
+            writeSecurityContext(out, (SecurityContext) value);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            jdkSerializer.serialize(value, bytes);
+            out.writeByte(TYPE_JDK);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> in.readUTF();
+            case TYPE_SECURITY_CONTEXT -> readSecurityContext(in);
+            case TYPE_JDK -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield jdkDeserializer.deserialize(new ByteArrayInputStream(bytes));
+            }
+            default -> throw new IOException("Unknown session attribute type " + type);
+        };
+    }
+
+    // Only the exact shape form login produces; subclasses or extra state go through the JDK fallback
+    private boolean isCompactSecurityContext(Object value) {
+        if (value.getClass() != SecurityContextImpl.class) {
+            return false;
+        }
+
+        Authentication authentication = ((SecurityContext) value).getAuthentication();
+        return authentication != null
+                && authentication.getClass() == UsernamePasswordAuthenticationToken.class
+                && authentication.getCredentials() == null
+                && authentication.getPrincipal() instanceof CustomUserDetails user
+                && user.getClass() == CustomUserDetails.class
+                && user.getPassword() == null
+                && (authentication.getDetails() == null || authentication.getDetails().getClass() == WebAuthenticationDetails.class)
+                && onlySimpleAuthorities(authentication.getAuthorities())
+                && onlySimpleAuthorities(user.getAuthorities());
+    }
+
+    private boolean onlySimpleAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream().allMatch(authority -> authority.getClass() == SimpleGrantedAuthority.class);
+    }
+
+    private void writeSecurityContext(DataOutputStream out, SecurityContext context) throws IOException {
+        Authentication authentication = context.getAuthentication();
+        CustomUserDetails user = (CustomUserDetails) authentication.getPrincipal();
+
+        writeNullableString(out, user.getUserId());
+        out.writeUTF(user.getUsername());
+        out.writeByte((user.isEnabled() ? 1 : 0)
+                | (user.isAccountNonExpired() ? 2 : 0)
+                | (user.isCredentialsNonExpired() ? 4 : 0)
+                | (user.isAccountNonLocked() ? 8 : 0));
+        writeAuthorities(out, user.getAuthorities());
+        writeAuthorities(out, authentication.getAuthorities());
+
+        WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+        out.writeBoolean(details != null);
+        if (details != null) {
+            writeNullableString(out, details.getRemoteAddress());
+            writeNullableString(out, details.getSessionId());
+        }
+    }
+
+    private SecurityContext readSecurityContext(DataInputStream in) throws IOException {
+        String userId = readNullableString(in);
+        String username = in.readUTF();
+        int flags = in.readUnsignedByte();
+        List<GrantedAuthority> userAuthorities = readAuthorities(in);
+        List<GrantedAuthority> tokenAuthorities = readAuthorities(in);
+
+        // User requires a password to construct; it was erased after login, so erase it again
+        CustomUserDetails user = new CustomUserDetails(userId, username, "",
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0, userAuthorities);
+        user.eraseCredentials();
+
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(user, null, tokenAuthorities);
+        if (in.readBoolean()) {
+            authentication.setDetails(new WebAuthenticationDetails(readNullableString(in), readNullableString(in)));
+        }
+
+        return new SecurityContextImpl(authentication);
+    }
+
+    private void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities) throws IOException {
+        out.writeShort(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            out.writeUTF(authority.getAuthority());
+        }
+    }
+
+    private List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<GrantedAuthority> authorities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+        }
+        return authorities;
+    }
+
+    private void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -8,7 +8,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
-import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
 import org.springframework.security.web.savedrequest.RequestCache;
 
 import java.io.IOException;
@@ -17,12 +16,15 @@ import java.util.Optional;
 
 public class CustomAuthenticationFailureHandler extends SimpleUrlAuthenticationFailureHandler {
 
-    private final RequestCache requestCache = new HttpSessionRequestCache();
+    private final RequestCache requestCache;
 
     private final UserRepository userRepository;
 
-    public CustomAuthenticationFailureHandler(UserRepository userRepository) {
+    public CustomAuthenticationFailureHandler(UserRepository userRepository, RequestCache requestCache) {
         this.userRepository = userRepository;
+        this.requestCache = requestCache;
+        // The login page explains failures from the error code in the URL, so a failed attempt needs no session
+        setAllowSessionCreation(false);
     }
 
     @Override
@@ -1,30 +1,148 @@
 package com.paulpladziewicz.fremontmi.app.config;
 
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.savedrequest.RequestCache;
 import org.springframework.security.web.savedrequest.SavedRequest;
+import org.springframework.security.web.savedrequest.SimpleSavedRequest;
+import org.springframework.web.util.WebUtils;
 
-public class CustomRequestCache extends HttpSessionRequestCache {
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Remembers where an anonymous visitor was headed in an HMAC-signed cookie instead of the
+ * session, so hitting a protected page doesn't create a session document for someone who may
+ * never log in. Only same-site paths are stored, and the signature stops the cookie from being
+ * turned into an open redirect. All instances must share the signing key; with none configured
+ * each instance makes its own and a login that lands elsewhere simply falls back to the default
+ * target.
+ */
+public class CustomRequestCache implements RequestCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomRequestCache.class);
+
+    private static final String COOKIE_NAME = "REDIRECT_TARGET";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec signingKey;
+
+    public CustomRequestCache(String signingKey) {
+        byte[] key;
+        if (signingKey == null || signingKey.isBlank()) {
+            logger.warn("request-cache.signing-key is not set, saved requests will only be honoured by this instance");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        this.signingKey = new SecretKeySpec(key, ALGORITHM);
+    }
 
     @Override
     public void saveRequest(HttpServletRequest request, HttpServletResponse response) {
-        // Get the request URI
         String requestURI = request.getRequestURI();
-        // Get query string parameters
         String queryString = request.getQueryString();
 
-        // Debugging log to see the URI and query string
-        System.out.println("Request URI: " + requestURI);
-        System.out.println("Query String: " + queryString);
-
-        // Avoid saving the request for login or login error pages
-        if (requestURI.equals("/login") || (queryString != null && queryString.contains("error=true"))) {
-            System.out.println("Skipping request cache for: " + requestURI + "?" + queryString);
+        // Avoid saving the request for login or login error pages, and only GETs can be replayed as a redirect
+        if (!HttpMethod.GET.matches(request.getMethod()) || requestURI.equals("/login") || (queryString != null && queryString.contains("error=true"))) {
             return;
         }
 
-        // For all other requests, use the default behavior
-        super.saveRequest(request, response);
+        String target = requestURI + (queryString != null ? "?" + queryString : "");
+        writeCookie(request, response, encode(target), -1);
+    }
+
+    @Override
+    public SavedRequest getRequest(HttpServletRequest request, HttpServletResponse response) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) {
+            return null;
+        }
+
+        String target = decode(cookie.getValue());
+        return target != null ? new SimpleSavedRequest(target) : null;
+    }
+
+    // Saved requests are always GETs, so there is nothing to restore; just clear the cookie once it has been used
+    @Override
+    public HttpServletRequest getMatchingRequest(HttpServletRequest request, HttpServletResponse response) {
+        SavedRequest savedRequest = getRequest(request, response);
+        if (savedRequest == null) {
+            return null;
+        }
+
+        String current = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        if (!current.equals(savedRequest.getRedirectUrl())) {
+            return null;
+        }
+
+        removeRequest(request, response);
+        return request;
+    }
+
+    @Override
+    public void removeRequest(HttpServletRequest request, HttpServletResponse response) {
+        if (WebUtils.getCookie(request, COOKIE_NAME) != null) {
+            writeCookie(request, response, "", 0);
+        }
+    }
+
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+
+    private String encode(String target) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payload = target.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    private String decode(String value) {
+        int separator = value.indexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(value.substring(0, separator));
+            byte[] signature = decoder.decode(value.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+
+            String target = new String(payload, StandardCharsets.UTF_8);
+            // A valid signature means we wrote it, but never redirect anywhere but a path on this site
+            return target.startsWith("/") && !target.startsWith("//") && !target.startsWith("/\\") ? target : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -7,7 +7,6 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
 import org.springframework.security.web.savedrequest.SavedRequest;
 import org.springframework.security.web.savedrequest.RequestCache;
 import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
@@ -18,10 +17,12 @@ import java.util.Optional;
 public class CustomSavedRequestAwareAuthenticationSuccessHandler extends SavedRequestAwareAuthenticationSuccessHandler {
 
     private final UserRepository userRepository;
-    private final RequestCache requestCache = new HttpSessionRequestCache();
+    private final RequestCache requestCache;
 
-    public CustomSavedRequestAwareAuthenticationSuccessHandler(UserRepository userRepository) {
+    public CustomSavedRequestAwareAuthenticationSuccessHandler(UserRepository userRepository, RequestCache requestCache) {
         this.userRepository = userRepository;
+        this.requestCache = requestCache;
+        setRequestCache(requestCache);
     }
 
     @Override
@@ -0,0 +1,91 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * In-process counters per executor (queue wait, run time, concurrency, failures), so the pooled
+ * and virtual-thread modes can be compared on the same traffic without a metrics backend.
+ */
+@Component
+public class ExecutorMetrics {
+
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    public TaskDecorator decorator(String executorName) {
+        Meter meter = meter(executorName);
+        return task -> {
+            long submittedAt = meter.submit();
+            return () -> meter.run(task, submittedAt);
+        };
+    }
+
+    public Meter meter(String executorName) {
+        return meters.computeIfAbsent(executorName, name -> new Meter());
+    }
+
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        meters.forEach((name, meter) -> stats.put(name, meter.stats()));
+        return stats;
+    }
+
+    public static class Meter {
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong active = new AtomicLong();
+        private final LongAccumulator peakActive = new LongAccumulator(Math::max, 0);
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        public long submit() {
+            submitted.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void run(Runnable task, long submittedAt) {
+            long startedAt = started(submittedAt);
+            boolean succeeded = false;
+            try {
+                task.run();
+                succeeded = true;
+            } finally {
+                finished(startedAt, succeeded);
+            }
+        }
+
+        public long started(long submittedAt) {
+            long startedAt = System.nanoTime();
+            long wait = startedAt - submittedAt;
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulate(wait);
+            peakActive.accumulate(active.incrementAndGet());
+            return startedAt;
+        }
+
+        public void finished(long startedAt, boolean succeeded) {
+            active.decrementAndGet();
+            totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+            (succeeded ? completed : failed).incrementAndGet();
+        }
+
+        private Stats stats() {
+            long finished = Math.max(1, completed.get() + failed.get());
+            return new Stats(submitted.get(), completed.get(), failed.get(), active.get(), peakActive.get(),
+                    totalWaitNanos.get() / finished / 1000, maxWaitNanos.get() / 1000, totalRunNanos.get() / finished / 1000);
+        }
+    }
+
+    public record Stats(long submitted, long completed, long failed, long active, long peakActive,
+                        long averageWaitMicros, long maxWaitMicros, long averageRunMicros) {
+    }
+}
@@ -7,10 +7,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class HtmlSanitizationService {
 
+    // Safelist is only read by Jsoup.clean, so one instance can be shared
+    private static final Safelist SAFELIST = new Safelist()
+            .addTags("br");
+
     public String sanitizeHtml(String html) {
-        Safelist safelist = new Safelist()
-                .addTags("br");
+        return Jsoup.clean(html, SAFELIST);
+    }
+
+    // Plain text as typed into the description box -> HTML safe to render with th:utext
+    public static String renderDescription(String description) {
+        if (description == null) {
+            return null;
+        }
 
-        return Jsoup.clean(html, safelist);
+        return Jsoup.clean(description.replace("\n", "<br/>"), SAFELIST);
     }
 }
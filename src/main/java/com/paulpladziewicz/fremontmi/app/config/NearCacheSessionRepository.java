@@ -0,0 +1,284 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.data.mongo.AbstractMongoSessionConverter;
+import org.springframework.session.data.mongo.MongoIndexedSessionRepository;
+import org.springframework.session.data.mongo.MongoSession;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sits in front of the Mongo session repository so most requests never touch the sessions
+ * collection. Reads are served from a short-lived local copy of the stored document, decoded
+ * fresh for every request so concurrent requests never share a mutable session. Saves only
+ * reach Mongo when an attribute was set or removed, or when the persisted last-access time is
+ * older than the touch interval; with an 8 hour timeout that skew is irrelevant to expiry.
+ *
+ * Changes and deletes made here are published to session_invalidations, which every instance
+ * polls, so a logout or login on one instance is seen by the others within the sync interval.
+ */
+@Component
+@Primary
+public class NearCacheSessionRepository implements SessionRepository<NearCacheSessionRepository.NearCacheSession> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheSessionRepository.class);
+
+    private static final TypeDescriptor SESSION_TYPE = TypeDescriptor.valueOf(MongoSession.class);
+    private static final TypeDescriptor DOCUMENT_TYPE = TypeDescriptor.valueOf(DBObject.class);
+
+    // Instance clocks are not perfectly aligned, so each poll re-reads a little of the previous window
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final MongoIndexedSessionRepository delegate;
+    private final AbstractMongoSessionConverter sessionConverter;
+    private final MongoTemplate mongoTemplate;
+    private final SessionGrowthMonitor sessionGrowthMonitor;
+
+    private final Map<String, CachedSession> cache = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSync = Instant.now();
+
+    @Value("${session.near-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${session.near-cache.ttl:PT30S}")
+    private Duration ttl;
+
+    @Value("${session.near-cache.touch-interval:PT5M}")
+    private Duration touchInterval;
+
+    @Value("${session.near-cache.max-entries:20000}")
+    private int maxEntries;
+
+    public NearCacheSessionRepository(MongoIndexedSessionRepository delegate, AbstractMongoSessionConverter sessionConverter, MongoTemplate mongoTemplate, SessionGrowthMonitor sessionGrowthMonitor) {
+        this.delegate = delegate;
+        this.sessionConverter = sessionConverter;
+        this.mongoTemplate = mongoTemplate;
+        this.sessionGrowthMonitor = sessionGrowthMonitor;
+    }
+
+    @Override
+    public NearCacheSession createSession() {
+        return new NearCacheSession(delegate.createSession(), null);
+    }
+
+    @Override
+    public NearCacheSession findById(String id) {
+        CachedSession cached = enabled ? cache.get(id) : null;
+        if (cached != null && !cached.isStale()) {
+            MongoSession session = decode(cached.document());
+            if (!session.isExpired()) {
+                return new NearCacheSession(session, id);
+            }
+            cache.remove(id);
+        }
+
+        // The delegate also deletes the stored session if it has expired
+        MongoSession session = delegate.findById(id);
+        if (session == null) {
+            return null;
+        }
+
+        remember(session);
+        return new NearCacheSession(session, id);
+    }
+
+    @Override
+    public void save(NearCacheSession session) {
+        MongoSession mongoSession = session.delegate;
+        CachedSession cached = session.loadedId != null ? cache.get(session.loadedId) : null;
+
+        if (!session.changed && cached != null && cached.persistedAccess().plus(touchInterval).isAfter(mongoSession.getLastAccessedTime())) {
+            return;
+        }
+
+        delegate.save(mongoSession);
+        remember(mongoSession);
+
+        if (session.loadedId == null) {
+            sessionGrowthMonitor.recordCreated(mongoSession.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) != null);
+        }
+
+        // Sessions created during this request can't be cached anywhere else yet
+        if (session.changed && session.loadedId != null) {
+            publishInvalidation(mongoSession.getId());
+            // Spring Security rotates the id on login; the pre-login copy must not outlive it anywhere
+            if (!session.loadedId.equals(mongoSession.getId())) {
+                cache.remove(session.loadedId);
+                publishInvalidation(session.loadedId);
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+        cache.remove(id);
+        publishInvalidation(id);
+    }
+
+    @Scheduled(fixedDelayString = "${session.near-cache.sync-interval:PT1S}")
+    public void evictInvalidated() {
+        if (!enabled) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("at").gt(lastSync.minus(CLOCK_SKEW)).and("origin").ne(instanceId));
+        query.fields().include("sessionId");
+
+        try {
+            mongoTemplate.find(query, SessionInvalidation.class).forEach(invalidation -> cache.remove(invalidation.getSessionId()));
+            lastSync = now;
+        } catch (Exception e) {
+            // Until the log is readable again nothing cached here can be trusted
+            logger.warn("Failed to read session invalidations, clearing the near-cache", e);
+            cache.clear();
+        }
+
+        cache.values().removeIf(CachedSession::isStale);
+    }
+
+    private void remember(MongoSession session) {
+        if (!enabled || (cache.size() >= maxEntries && !cache.containsKey(session.getId()))) {
+            return;
+        }
+
+        cache.put(session.getId(), new CachedSession(encode(session), session.getLastAccessedTime(), System.nanoTime() + ttl.toNanos()));
+    }
+
+    private void publishInvalidation(String sessionId) {
+        if (!enabled) {
+            return;
+        }
+
+        SessionInvalidation invalidation = new SessionInvalidation();
+        invalidation.setSessionId(sessionId);
+        invalidation.setOrigin(instanceId);
+        invalidation.setAt(Instant.now());
+        mongoTemplate.insert(invalidation);
+    }
+
+    private DBObject encode(MongoSession session) {
+        return (DBObject) sessionConverter.convert(session, SESSION_TYPE, DOCUMENT_TYPE);
+    }
+
+    private MongoSession decode(DBObject document) {
+        return (MongoSession) sessionConverter.convert(document, DOCUMENT_TYPE, SESSION_TYPE);
+    }
+
+    private record CachedSession(DBObject document, Instant persistedAccess, long expiresAt) {
+        boolean isStale() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Marks the session changed on anything but a last-access update. Attributes mutated in place
+     * without being set again are not detected; callers set them again after changing them, as
+     * Spring Security and the flash map manager already do.
+     */
+    public static final class NearCacheSession implements Session {
+
+        private final MongoSession delegate;
+
+        // Id the session was loaded under, null for sessions created during this request
+        private final String loadedId;
+
+        private boolean changed;
+
+        NearCacheSession(MongoSession delegate, String loadedId) {
+            this.delegate = delegate;
+            this.loadedId = loadedId;
+            this.changed = loadedId == null;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            changed = true;
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            changed = true;
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            if (delegate.getAttribute(attributeName) != null) {
+                changed = true;
+            }
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            if (!interval.equals(delegate.getMaxInactiveInterval())) {
+                changed = true;
+            }
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import com.paulpladziewicz.fremontmi.app.WarmupService;
+import com.paulpladziewicz.fremontmi.content.CachedPage;
+import com.paulpladziewicz.fremontmi.content.PageCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serves anonymous GETs of public pages from {@link PageCache}. Registered without an order so it
+ * runs after the security filter chain, which has already resolved the user and the CSRF token.
+ */
+@Component
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+    private final PageCache pageCache;
+    private final WarmupService warmupService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${page.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${page.cache.paths:/}")
+    private List<String> paths;
+
+    public PageCacheFilter(PageCache pageCache, WarmupService warmupService) {
+        this.pageCache = pageCache;
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+
+        String path = request.getRequestURI();
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (isAuthenticated() || hasFlashAttributes(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = key(request);
+        // Warmup requests always render so the rendering path gets compiled, but still refill the cache
+        CachedPage page = warmupService.isWarmupRequest(request) ? null : pageCache.find(key);
+
+        if (page != null) {
+            serve(page, request, response);
+            return;
+        }
+
+        long generation = pageCache.generation();
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+
+        if (responseWrapper.getStatus() == HttpStatus.OK.value() && isHtml(responseWrapper.getContentType())) {
+            pageCache.put(key, request.getRequestURI(), responseWrapper.getContentType(), responseWrapper.getContentAsByteArray(), csrfToken(request), generation);
+        }
+
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void serve(CachedPage page, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        response.setContentType(page.getContentType());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader("X-Page-Cache", "HIT");
+        if (page.hasCsrfToken()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        page.writeTo(response.getOutputStream(), page.hasCsrfToken() ? csrfToken(request) : null, gzip);
+    }
+
+    // htmx requests for the same URL get a fragment rather than the full page
+    private String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query != null ? "?" + query : "") + (request.getHeader("HX-Request") != null ? "|hx" : "");
+    }
+
+    private boolean isAuthenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+    private boolean hasFlashAttributes(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute(FLASH_MAPS_ATTRIBUTE) instanceof List<?> flashMaps && !flashMaps.isEmpty();
+    }
+
+    private boolean isHtml(String contentType) {
+        return contentType != null && MediaType.TEXT_HTML.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    private String csrfToken(HttpServletRequest request) {
+        CsrfToken csrfToken = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        return csrfToken != null ? csrfToken.getToken() : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Records request handling on Tomcat's threads under the "http" executor. Servlet code cannot see
+ * how long a request queued for a thread, so only concurrency and handling time are meaningful.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final ExecutorMetrics.Meter meter;
+
+    public RequestMetricsFilter(ExecutorMetrics executorMetrics) {
+        this.meter = executorMetrics.meter("http");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long startedAt = meter.started(meter.submit());
+        boolean succeeded = false;
+        try {
+            filterChain.doFilter(request, response);
+            succeeded = response.getStatus() < 500;
+        } finally {
+            meter.finished(startedAt, succeeded);
+        }
+    }
+}
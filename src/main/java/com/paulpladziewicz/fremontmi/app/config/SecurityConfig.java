@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,6 +14,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.savedrequest.RequestCache;
 
 import com.paulpladziewicz.fremontmi.user.CustomUserDetailsService;
 import com.paulpladziewicz.fremontmi.user.UserRepository;
@@ -28,47 +31,55 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RequestCache requestCache) throws Exception {
         http.authorizeHttpRequests((authorize) -> authorize
-                .requestMatchers(HttpMethod.POST, "/api/vectors/search", "/api/upload", "/register", "/contact",
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/vectors/search", "/api/vectors/search/page", "/api/upload", "/register", "/contact",
                         "/subscribe", "/api/stripe/**", "/article-contact", "/taqueria",
                         "/contact/neighbor-services-profile")
                 .permitAll()
-                .requestMatchers("/search", "/about", "/api/subscribe", "/api/events", "/overview/**", "/articles/**",
+                .requestMatchers("/search", "/api/vectors/search/stream", "/api/autocomplete", "/about", "/api/subscribe", "/api/events", "/api/home", "/overview/**", "/articles/**",
                         "/groups/", "/groups/**", "/events", "/events/**", "/register", "/forgot-password",
                         "/reset-password", "/forgot-username", "/css/**", "/privacy-policy", "/terms-of-service",
                         "/js/**", "/images/**", "/favicon.ico", "/error", "/login", "/login?error", "/login?error=*",
                         "/login?logout", "/businesses", "/businesses/**", "/neighbor-services", "/neighbor-services/**",
                         "/confirm", "/tagging-guidelines", "/create/neighbor-services-profile/overview",
-                        "/create/business/overview", "/", "/robots.txt", "/sitemap.xml", "/health", "/group/**",
+                        "/create/business/overview", "/", "/robots.txt", "/sitemap.xml", "/sitemap-*.xml", "/health", "/group/**",
                         "/event/**", "/business/**", "/neighbor-services-profile/**")
                 .permitAll()
                 .anyRequest().authenticated());
         http.formLogin(formLogin -> formLogin
                 .loginPage("/login")
                 .permitAll()
-                .failureHandler(customAuthenticationFailureHandler())
-                .successHandler(customSavedRequestAwareAuthenticationSuccessHandler()));
+                .failureHandler(customAuthenticationFailureHandler(requestCache))
+                .successHandler(customSavedRequestAwareAuthenticationSuccessHandler(requestCache)));
         http.requestCache(requestCacheCustomizer -> requestCacheCustomizer
-                .requestCache(new CustomRequestCache()));
+                .requestCache(requestCache));
         http.logout(logout -> logout
                 .logoutSuccessUrl("/")
                 .invalidateHttpSession(true)
                 .deleteCookies("JSESSIONID")
                 .permitAll());
+        // Every page renders a CSRF token; keeping it in a cookie means anonymous visitors never need a session
         http.csrf((csrf) -> csrf
+                .csrfTokenRepository(new CookieCsrfTokenRepository())
                 .ignoringRequestMatchers("/login"));
         return http.build();
     }
 
     @Bean
-    public CustomSavedRequestAwareAuthenticationSuccessHandler customSavedRequestAwareAuthenticationSuccessHandler() {
-        return new CustomSavedRequestAwareAuthenticationSuccessHandler(userRepository);
+    public RequestCache requestCache(@Value("${request-cache.signing-key:}") String signingKey) {
+        return new CustomRequestCache(signingKey);
     }
 
     @Bean
-    public AuthenticationFailureHandler customAuthenticationFailureHandler() {
-        return new CustomAuthenticationFailureHandler(userRepository);
+    public CustomSavedRequestAwareAuthenticationSuccessHandler customSavedRequestAwareAuthenticationSuccessHandler(RequestCache requestCache) {
+        return new CustomSavedRequestAwareAuthenticationSuccessHandler(userRepository, requestCache);
+    }
+
+    @Bean
+    public AuthenticationFailureHandler customAuthenticationFailureHandler(RequestCache requestCache) {
+        return new CustomAuthenticationFailureHandler(userRepository, requestCache);
     }
 
     @Bean
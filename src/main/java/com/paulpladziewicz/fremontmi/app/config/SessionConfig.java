@@ -1,9 +1,26 @@
 package com.paulpladziewicz.fremontmi.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.data.mongo.AbstractMongoSessionConverter;
+import org.springframework.session.data.mongo.JdkMongoSessionConverter;
 import org.springframework.session.data.mongo.config.annotation.web.http.EnableMongoHttpSession;
 
+import java.time.Duration;
+
 @Configuration
-@EnableMongoHttpSession(maxInactiveIntervalInSeconds = 28800) // Sets session timeout to 8 hours
+@EnableMongoHttpSession(maxInactiveIntervalInSeconds = SessionConfig.MAX_INACTIVE_INTERVAL_SECONDS)
 public class SessionConfig {
+
+    static final int MAX_INACTIVE_INTERVAL_SECONDS = 28800; // Sets session timeout to 8 hours
+
+    // Shared by the Mongo repository and NearCacheSessionRepository, which encodes its cached copies the same way
+    @Bean
+    public AbstractMongoSessionConverter mongoSessionConverter(@Value("${session.codec.compact-writes:false}") boolean compactWrites) {
+        CompactSessionAttributeCodec codec = new CompactSessionAttributeCodec(compactWrites);
+        return new JdkMongoSessionConverter(new SerializingConverter(codec), new DeserializingConverter(codec), Duration.ofSeconds(MAX_INACTIVE_INTERVAL_SECONDS));
+    }
 }
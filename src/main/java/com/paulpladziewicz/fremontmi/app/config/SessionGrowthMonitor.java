@@ -0,0 +1,88 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples the size of the sessions collection and counts the sessions this instance creates,
+ * split by whether anyone was logged in. Comparing the samples across a deploy shows how much
+ * of the collection's growth came from anonymous traffic.
+ */
+@Component
+public class SessionGrowthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionGrowthMonitor.class);
+
+    // Spring Session's default collection for @EnableMongoHttpSession
+    private static final String SESSIONS_COLLECTION = "sessions";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final AtomicLong anonymousCreated = new AtomicLong();
+    private final AtomicLong authenticatedCreated = new AtomicLong();
+
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    @Value("${session.growth.retained-samples:288}")
+    private int retainedSamples;
+
+    public SessionGrowthMonitor(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void recordCreated(boolean authenticated) {
+        (authenticated ? authenticatedCreated : anonymousCreated).incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${session.growth.sample-interval:PT5M}")
+    public void sample() {
+        Sample sample = new Sample(Instant.now(), mongoTemplate.getCollection(SESSIONS_COLLECTION).estimatedDocumentCount(),
+                anonymousCreated.get(), authenticatedCreated.get());
+
+        synchronized (samples) {
+            samples.addLast(sample);
+            while (samples.size() > retainedSamples) {
+                samples.removeFirst();
+            }
+        }
+
+        Stats stats = getStats();
+        logger.info("Sessions: {} documents, {} per hour; created here since boot: {} anonymous, {} authenticated",
+                stats.documents(), String.format("%.1f", stats.growthPerHour()), stats.anonymousCreated(), stats.authenticatedCreated());
+    }
+
+    public Stats getStats() {
+        List<Sample> history;
+        synchronized (samples) {
+            history = List.copyOf(samples);
+        }
+
+        if (history.isEmpty()) {
+            return new Stats(0, 0, anonymousCreated.get(), authenticatedCreated.get(), history);
+        }
+
+        Sample first = history.getFirst();
+        Sample last = history.getLast();
+        long elapsedMillis = Duration.between(first.at(), last.at()).toMillis();
+        double growthPerHour = elapsedMillis > 0 ? (last.documents() - first.documents()) * 3_600_000.0 / elapsedMillis : 0;
+
+        return new Stats(last.documents(), growthPerHour, anonymousCreated.get(), authenticatedCreated.get(), history);
+    }
+
+    public record Sample(Instant at, long documents, long anonymousCreated, long authenticatedCreated) {
+    }
+
+    public record Stats(long documents, double growthPerHour, long anonymousCreated, long authenticatedCreated, List<Sample> samples) {
+    }
+}
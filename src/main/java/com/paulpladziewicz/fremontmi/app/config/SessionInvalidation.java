@@ -0,0 +1,26 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// A session changed or was deleted on one instance; the others drop their near-cached copy
+@Data
+@Document(collection = "session_invalidations")
+public class SessionInvalidation {
+
+    @Id
+    private String id;
+
+    private String sessionId;
+
+    // Instance that made the change, which already holds the current copy
+    private String origin;
+
+    // Only needs to outlive the longest sync gap between instances
+    @Indexed(expireAfter = "1h")
+    private Instant at;
+}
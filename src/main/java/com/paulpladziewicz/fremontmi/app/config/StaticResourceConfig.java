@@ -0,0 +1,39 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Serves css, js and images under content-hashed URLs (theme.min-{md5}.css). Templates get the
+ * hashed URL through @{...} links, so the files can be cached as immutable; the .br and .gz
+ * variants written by the build are picked by Accept-Encoding.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    static final String[] ASSET_DIRECTORIES = {"css", "js", "images"};
+
+    // devtools turns this off so edited assets get a fresh hash without a restart
+    @Value("${spring.web.resources.chain.cache:true}")
+    private boolean cacheResources;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : ASSET_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                    .resourceChain(cacheResources)
+                    // Must come first so the version hash is computed from the uncompressed file
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Asset URLs without a content hash (hard-coded links, font urls inside css) are still served, but
+ * must not inherit the immutable header of the hashed ones; they are revalidated instead.
+ */
+@Component
+public class UnversionedAssetFilter extends OncePerRequestFilter {
+
+    private static final Pattern VERSIONED_PATH = Pattern.compile(".*-[0-9a-f]{32}(\\.[^/]+)?$");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return Arrays.stream(StaticResourceConfig.ASSET_DIRECTORIES).noneMatch(directory -> path.startsWith("/" + directory + "/"))
+                || VERSIONED_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, new HttpServletResponseWrapper(response) {
+            @Override
+            public void setHeader(String name, String value) {
+                super.setHeader(name, HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) ? "no-cache" : value);
+            }
+
+            @Override
+            public void addHeader(String name, String value) {
+                super.addHeader(name, HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) ? "no-cache" : value);
+            }
+        });
+    }
+}
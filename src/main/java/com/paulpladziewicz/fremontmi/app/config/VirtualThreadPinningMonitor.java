@@ -0,0 +1,98 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams JFR's jdk.VirtualThreadPinned events in-process. A virtual thread that blocks inside a
+ * synchronized block or native frame holds its carrier thread, which quietly caps concurrency at
+ * the carrier count. Each pinning site is logged the first time it exceeds the threshold and
+ * counted afterwards.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinningSites = new ConcurrentHashMap<>();
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${virtual-threads.pinning.threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public Map<String, Long> getPinningSites() {
+        Map<String, Long> counts = new TreeMap<>();
+        pinningSites.forEach((site, count) -> counts.put(site, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    private void record(RecordedEvent event) {
+        String site = pinningSite(event);
+        LongAdder count = pinningSites.computeIfAbsent(site, key -> new LongAdder());
+        count.increment();
+
+        if (count.sum() == 1) {
+            logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    // The innermost application frame says more than the JDK frame that actually parked
+    private String pinningSite(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+
+        RecordedFrame fallback = event.getStackTrace().getFrames().get(0);
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith("com.paulpladziewicz.")) {
+                return describe(frame);
+            }
+        }
+        return describe(fallback);
+    }
+
+    private String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
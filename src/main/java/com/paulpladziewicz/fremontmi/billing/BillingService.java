@@ -2,6 +2,7 @@ package com.paulpladziewicz.fremontmi.billing;
 
 import com.paulpladziewicz.fremontmi.app.exceptions.StripeServiceException;
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentService;
 import com.paulpladziewicz.fremontmi.content.ContentRepository;
 import com.paulpladziewicz.fremontmi.content.ContentStatus;
 import com.paulpladziewicz.fremontmi.content.ContentVisibility;
@@ -40,6 +41,8 @@ public class BillingService {
 
     private final ContentRepository contentRepository;
 
+    private final ContentService contentService;
+
     @Value("${stripe.webhook-secret}")
     private String webhookSecret;
 
@@ -55,11 +58,12 @@ public class BillingService {
     private String annualNeighborServiceDisplayPrice = "$50.00 / year";
     private String annualNeighborServiceDisplayName = "Yearly NeighborServices™ Subscription";
 
-    public BillingService(UserService userService, EmailService emailService, BillingRepository billingRepository, ContentRepository contentRepository) {
+    public BillingService(UserService userService, EmailService emailService, BillingRepository billingRepository, ContentRepository contentRepository, ContentService contentService) {
         this.userService = userService;
         this.emailService = emailService;
         this.billingRepository = billingRepository;
         this.contentRepository = contentRepository;
+        this.contentService = contentService;
     }
 
     @PostConstruct
@@ -382,10 +386,7 @@ public class BillingService {
 
         billingRepository.save(subscriptionRecord);
 
-        content.setStatus(ContentStatus.ACTIVE);
-        content.setVisibility(ContentVisibility.PUBLIC);
-
-        Content savedContent = contentRepository.save(content);
+        Content savedContent = contentService.activate(content);
 
         return savedContent.getPathname();
     }
@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.content;
 
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import lombok.Data;
 
 import java.util.Map;
@@ -13,6 +14,8 @@ public class Business implements ContentDetail {
 
     private String description;
 
+    private String descriptionHtml;
+
     private String address;
     private boolean displayAddress = true;
 
@@ -41,6 +44,7 @@ public class Business implements ContentDetail {
         setTitle(business.getTitle());
         setHeadline(business.getHeadline());
         setDescription(business.getDescription());
+        setDescriptionHtml(HtmlSanitizationService.renderDescription(business.getDescription()));
         setAddress(business.getAddress());
         setPhoneNumber(business.getPhoneNumber());
         setEmail(business.getEmail());
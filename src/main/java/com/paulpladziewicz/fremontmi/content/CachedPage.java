@@ -0,0 +1,178 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A rendered page held by {@link PageCache}. The body is split around every occurrence of the
+ * CSRF token it was rendered with, and each segment is deflated once up front. Serving a request
+ * writes the precompressed segments with that request's token spliced in as stored deflate blocks,
+ * so the gzip body is assembled without running the compressor again.
+ */
+public final class CachedPage {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final String pathname;
+    private final ContentType type;
+    private final String contentType;
+    private final Instant createdAt = Instant.now();
+    private final byte[][] segments;
+    private final byte[][] deflatedSegments;
+    private final int rawLength;
+    private final int size;
+
+    private CachedPage(String pathname, ContentType type, String contentType, byte[][] segments) {
+        this.pathname = pathname;
+        this.type = type;
+        this.contentType = contentType;
+        this.segments = segments;
+        this.deflatedSegments = new byte[segments.length][];
+
+        int raw = 0;
+        int deflated = 0;
+        for (int i = 0; i < segments.length; i++) {
+            deflatedSegments[i] = deflate(segments[i], i == segments.length - 1);
+            raw += segments[i].length;
+            deflated += deflatedSegments[i].length;
+        }
+        this.rawLength = raw;
+        this.size = raw + deflated;
+    }
+
+    public static CachedPage of(String pathname, ContentType type, String contentType, byte[] body, String csrfToken) {
+        return new CachedPage(pathname, type, contentType, split(body, csrfToken));
+    }
+
+    public String getPathname() {
+        return pathname;
+    }
+
+    // The content type this page renders, or null for pages that show no content
+    public ContentType getType() {
+        return type;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean hasCsrfToken() {
+        return segments.length > 1;
+    }
+
+    public void writeTo(OutputStream out, String csrfToken, boolean gzip) throws IOException {
+        byte[] token = hasCsrfToken() ? csrfToken.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        if (!gzip) {
+            for (int i = 0; i < segments.length; i++) {
+                out.write(segments[i]);
+                if (i < segments.length - 1) {
+                    out.write(token);
+                }
+            }
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        out.write(GZIP_HEADER);
+        for (int i = 0; i < segments.length; i++) {
+            out.write(deflatedSegments[i]);
+            crc.update(segments[i]);
+            if (i < segments.length - 1) {
+                writeStoredBlock(out, token);
+                crc.update(token);
+            }
+        }
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, rawLength + token.length * (segments.length - 1));
+    }
+
+    private static byte[][] split(byte[] body, String csrfToken) {
+        if (csrfToken == null || csrfToken.isEmpty()) {
+            return new byte[][]{body};
+        }
+
+        byte[] token = csrfToken.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = indexOf(body, token, 0); i >= 0; i = indexOf(body, token, start)) {
+            segments.add(Arrays.copyOfRange(body, start, i));
+            start = i + token.length;
+        }
+        segments.add(Arrays.copyOfRange(body, start, body.length));
+        return segments.toArray(new byte[0][]);
+    }
+
+    private static int indexOf(byte[] body, byte[] token, int from) {
+        outer:
+        for (int i = from; i <= body.length - token.length; i++) {
+            for (int j = 0; j < token.length; j++) {
+                if (body[i + j] != token[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // Every segment but the last ends on a sync flush, leaving the stream byte aligned for the next block
+    private static byte[] deflate(byte[] input, boolean last) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int written;
+                do {
+                    written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, written);
+                } while (written == buffer.length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Non-final, uncompressed deflate block (RFC 1951 3.2.4)
+    private static void writeStoredBlock(OutputStream out, byte[] data) throws IOException {
+        out.write(0);
+        out.write(data.length & 0xff);
+        out.write((data.length >> 8) & 0xff);
+        out.write(~data.length & 0xff);
+        out.write((~data.length >> 8) & 0xff);
+        out.write(data);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
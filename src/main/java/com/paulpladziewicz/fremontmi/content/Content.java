@@ -14,7 +14,9 @@ import java.util.*;
 @Data
 @Document(collection = "content")
 @CompoundIndexes({
-    @CompoundIndex(name = "event_start_time_idx", def = "{'detail.days.startTime': 1}")
+    @CompoundIndex(name = "event_start_time_idx", def = "{'detail.days.startTime': 1}"),
+    // Backs the lexical matches streamed ahead of semantic search results
+    @CompoundIndex(name = "title_text_idx", def = "{'detail.title': 'text'}")
 })
 public class Content {
 
@@ -36,6 +38,7 @@ public class Content {
 
     private ContentDetail detail;
 
+    @Indexed
     private List<String> tags = new ArrayList<>();
 
     private List<String> relatedContentIds;
@@ -56,6 +59,7 @@ public class Content {
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Indexed
     private LocalDateTime updatedAt;
 
     private boolean reviewed = false;
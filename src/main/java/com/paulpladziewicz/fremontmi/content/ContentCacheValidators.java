@@ -0,0 +1,110 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.WebUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Answers conditional GETs before any hydration or rendering. Detail pages are validated by a
+ * projection of version and relatedContentIds looked up by pathname; list endpoints by
+ * the per-type change token. The instance's boot id is mixed in so a deploy with new templates
+ * never gets a 304 for markup rendered by the previous build.
+ */
+@Component
+public class ContentCacheValidators {
+
+    // Default cookie name of CookieCsrfTokenRepository
+    private static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+
+    private final String bootId = UUID.randomUUID().toString();
+
+    private final MongoTemplate mongoTemplate;
+    private final ContentChangeTokens contentChangeTokens;
+
+    public ContentCacheValidators(MongoTemplate mongoTemplate, ContentChangeTokens contentChangeTokens) {
+        this.mongoTemplate = mongoTemplate;
+        this.contentChangeTokens = contentChangeTokens;
+    }
+
+    // Detail pages show admin controls and a CSRF token, so the validator is per user and token
+    public boolean checkDetailNotModified(WebRequest webRequest, String pathname, ContentType type, String variant) {
+        Query query = Query.query(Criteria.where("pathname").is(pathname).and("type").is(type));
+        query.fields().include("version", "relatedContentIds");
+        Content content = mongoTemplate.findOne(query, Content.class);
+
+        if (content == null) {
+            return false;
+        }
+
+        // Related items are rendered by title, and they are always of the same type
+        long relatedToken = content.getRelatedContentIds() == null || content.getRelatedContentIds().isEmpty() ? 0 : contentChangeTokens.current(type);
+        String etag = etag(content.getId(), content.getVersion(), content.getRelatedContentIds(), relatedToken, variant, viewerKey(webRequest));
+        setCacheControl(webRequest, "private, no-cache");
+
+        // ETag only: updatedAt misses status changes, hearts and participants, and knows nothing of the viewer
+        // or the deploy, so an If-Modified-Since-only client would get 304s for stale markup
+        return webRequest.checkNotModified(etag);
+    }
+
+    // List endpoints answer both JSON and NDJSON on the same URL, so callers put the representation in the variant
+    public boolean checkListNotModified(WebRequest webRequest, ContentType type, String variant) {
+        String etag = etag(type, contentChangeTokens.current(type), variant);
+        setCacheControl(webRequest, "public, no-cache");
+
+        HttpServletResponse response = ((NativeWebRequest) webRequest).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        return webRequest.checkNotModified(etag);
+    }
+
+    // The next available day moves as time passes, so event lists also roll over every five minutes
+    public boolean checkEventListNotModified(WebRequest webRequest, LocalDateTime now, String variant) {
+        LocalDateTime window = now.truncatedTo(ChronoUnit.HOURS).plusMinutes(now.getMinute() / 5 * 5);
+        return checkListNotModified(webRequest, ContentType.EVENT, variant + ":" + window);
+    }
+
+    // Anonymous visitors have no session, but the CSRF cookie pins which token their cached copy embeds
+    private String viewerKey(WebRequest webRequest) {
+        Principal principal = webRequest.getUserPrincipal();
+        HttpServletRequest request = ((NativeWebRequest) webRequest).getNativeRequest(HttpServletRequest.class);
+        HttpSession session = request != null ? request.getSession(false) : null;
+        Cookie csrfCookie = request != null ? WebUtils.getCookie(request, CSRF_COOKIE_NAME) : null;
+
+        return (principal != null ? principal.getName() : "anonymous") + ":" + (session != null ? session.getId() : "")
+                + ":" + (csrfCookie != null ? csrfCookie.getValue() : "");
+    }
+
+    private String etag(Object... parts) {
+        StringBuilder key = new StringBuilder(bootId);
+        for (Object part : parts) {
+            key.append('|').append(part);
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Spring Security's default no-store would stop browsers from ever revalidating; it backs off when this is set
+    private void setCacheControl(WebRequest webRequest, String cacheControl) {
+        HttpServletResponse response = ((NativeWebRequest) webRequest).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+    }
+}
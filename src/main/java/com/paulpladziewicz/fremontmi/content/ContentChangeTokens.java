@@ -0,0 +1,68 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Two counters per content type, bumped on every write to content of that type: one for
+ * structural changes (create, edit, delete, tags) and one for in-place changes such as hearts
+ * and members. List endpoints use their sum as a collection-level validator: reading it is a
+ * single _id lookup, and because it lives in Mongo a write on any instance changes it for all
+ * of them. The page cache only follows the structural counter.
+ */
+@Component
+public class ContentChangeTokens {
+
+    private static final String COLLECTION = "content_change_tokens";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ContentChangeTokens(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void touch(ContentType type) {
+        if (type != null) {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(type.name())), new Update().inc("sequence", 1L), COLLECTION);
+        }
+    }
+
+    public void touchInPlace(ContentType type) {
+        if (type != null) {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(type.name())), new Update().inc("inPlaceSequence", 1L), COLLECTION);
+        }
+    }
+
+    public void touchAll() {
+        for (ContentType type : ContentType.values()) {
+            touch(type);
+        }
+    }
+
+    public long current(ContentType type) {
+        Document token = mongoTemplate.findById(type.name(), Document.class, COLLECTION);
+        return token == null ? 0 : sequence(token, "sequence") + sequence(token, "inPlaceSequence");
+    }
+
+    // Structural sequences only
+    public Map<ContentType, Long> currentAll() {
+        Map<ContentType, Long> sequences = new EnumMap<>(ContentType.class);
+        for (Document token : mongoTemplate.findAll(Document.class, COLLECTION)) {
+            sequences.put(ContentType.valueOf(token.getString("_id")), sequence(token, "sequence"));
+        }
+        return sequences;
+    }
+
+    // A type that has only seen one kind of change so far has no field for the other
+    private static long sequence(Document token, String field) {
+        Number sequence = (Number) token.get(field);
+        return sequence == null ? 0 : sequence.longValue();
+    }
+}
@@ -6,6 +6,11 @@ public interface ContentDetail {
 
     String getDescription();
 
+    // Sanitized HTML rendered from the description on every write, so views never sanitize per request
+    String getDescriptionHtml();
+
+    void setDescriptionHtml(String descriptionHtml);
+
     default String getEmail() {
         return null;
     }
@@ -22,6 +22,9 @@ public interface ContentRepository extends MongoRepository<Content, String> {
     @Query("{ 'type': ?0, 'visibility': ?1 }")
     Page<Content> findByTypeAndVisibility(ContentType contentType, ContentVisibility visibility, Pageable pageable);
 
+    @Query("{ 'type': ?0, 'visibility': ?1, 'status': 'ACTIVE' }")
+    List<Content> findActiveByTypeAndVisibility(ContentType contentType, ContentVisibility visibility, Pageable pageable);
+
     @Query("{ 'type':  ?0, 'visibility': ?1, 'tags': ?2, }")
     Page<Content> findByTypeVisibilityAndTag(ContentType contentType, ContentVisibility visibility, String tag, Pageable pageable);
 
@@ -32,7 +35,7 @@ public interface ContentRepository extends MongoRepository<Content, String> {
     @Query("{ 'detail.days.startTime': { $gte: ?0 } }")
     Page<Content> findEventsAfterStartTime(LocalDateTime startTime, Pageable pageable);
 
-    @Query(value = "{ 'visibility': 'PUBLIC' }", fields = "{ 'pathname': 1 }")
-    List<Content> findAllPublicContentPathnames();
+    @Query("{ 'type': 'EVENT', 'visibility': ?1, 'status': 'ACTIVE', 'detail.days.startTime': { $gte: ?0 } }")
+    List<Content> findActiveEventsAfterStartTime(LocalDateTime startTime, ContentVisibility visibility, Pageable pageable);
 }
 
@@ -2,11 +2,20 @@ package com.paulpladziewicz.fremontmi.content;
 
 import com.paulpladziewicz.fremontmi.app.exceptions.ContentNotFoundException;
 import com.paulpladziewicz.fremontmi.app.exceptions.PermissionDeniedException;
+import com.paulpladziewicz.fremontmi.discovery.SemanticResultCache;
+import com.paulpladziewicz.fremontmi.discovery.SitemapService;
 import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.VectorSearchFilter;
 import com.paulpladziewicz.fremontmi.user.UserProfile;
 import com.paulpladziewicz.fremontmi.user.UserService;
 
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.text.Normalizer;
@@ -20,18 +29,32 @@ import java.util.stream.Collectors;
 @Service
 public class ContentService {
 
+    public static final int LIST_PAGE_SIZE = 9;
+
+    public static final int EVENT_PAGE_SIZE = 50;
+
     private final ContentRepository contentRepository;
     private final ContentArchiveRepository contentArchiveRepository;
     private final ContentVectorRepository contentVectorRepository;
     private final UserService userService;
     private final TagService tagService;
+    private final SemanticResultCache semanticResultCache;
+    private final MongoTemplate mongoTemplate;
+    private final SitemapService sitemapService;
+    private final ContentChangeTokens contentChangeTokens;
+    private final PageCache pageCache;
 
-    public ContentService(ContentRepository contentRepository, ContentArchiveRepository contentArchiveRepository, ContentVectorRepository contentVectorRepository, UserService userService, TagService tagService) {
+    public ContentService(ContentRepository contentRepository, ContentArchiveRepository contentArchiveRepository, ContentVectorRepository contentVectorRepository, UserService userService, TagService tagService, SemanticResultCache semanticResultCache, MongoTemplate mongoTemplate, SitemapService sitemapService, ContentChangeTokens contentChangeTokens, PageCache pageCache) {
         this.contentRepository = contentRepository;
         this.contentArchiveRepository = contentArchiveRepository;
         this.contentVectorRepository = contentVectorRepository;
         this.userService = userService;
         this.tagService = tagService;
+        this.semanticResultCache = semanticResultCache;
+        this.mongoTemplate = mongoTemplate;
+        this.sitemapService = sitemapService;
+        this.contentChangeTokens = contentChangeTokens;
+        this.pageCache = pageCache;
     }
 
     public Content create(ContentType type, ContentDto contentValues) {
@@ -53,6 +76,9 @@ public class ContentService {
         content.setUpdatedAt(LocalDateTime.now());
 
         content = contentRepository.save(content);
+        sitemapService.markStale();
+        contentChangeTokens.touch(type);
+        pageCache.evictType(type);
 
         userProfile.getContentActions()
                 .computeIfAbsent(type, k -> new HashMap<>())
@@ -65,7 +91,10 @@ public class ContentService {
     }
 
     public Content save(Content content) {
-        return contentRepository.save(content);
+        Content saved = contentRepository.save(content);
+        contentChangeTokens.touchInPlace(saved.getType());
+        pageCache.evictContent(saved);
+        return saved;
     }
 
     public Content findById(String contentId) {
@@ -77,18 +106,72 @@ public class ContentService {
         return contentRepository.findByIdIn(contentIds);
     }
 
+    public List<Content> findRelatedContent(Content content) {
+        List<String> relatedContentIds = content.getRelatedContentIds();
+        if (relatedContentIds == null || relatedContentIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Content> relatedContent = contentRepository.findByIdIn(relatedContentIds).stream()
+                .filter(related -> related.getVisibility() == ContentVisibility.PUBLIC && related.getStatus() == ContentStatus.ACTIVE)
+                .collect(Collectors.toMap(Content::getId, related -> related));
+
+        return relatedContentIds.stream()
+                .map(relatedContent::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Cheap keyword matching on tags and titles, used to show something while semantic search runs.
+    // Tag matches use the tags index and title matches the text index, so neither scans the collection.
+    public List<Content> findLexicalMatches(String prompt, VectorSearchFilter filter, int limit) {
+        List<String> words = Arrays.stream(prompt.toLowerCase().split("[^a-z0-9]+"))
+                .filter(word -> word.length() >= 3)
+                .distinct()
+                .toList();
+
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> candidateTags = new ArrayList<>(words);
+        candidateTags.add(prompt);
+        List<String> tags = tagService.findDisplayNames(candidateTags);
+
+        Map<String, Content> matches = new LinkedHashMap<>();
+        if (!tags.isEmpty()) {
+            Query tagQuery = Query.query(filter.toContentCriteria().and("tags").in(tags)).limit(limit);
+            mongoTemplate.find(tagQuery, Content.class).forEach(content -> matches.put(content.getId(), content));
+        }
+
+        if (matches.size() < limit) {
+            Query titleQuery = TextQuery.queryText(TextCriteria.forDefaultLanguage().matchingAny(words.toArray(String[]::new)))
+                    .sortByScore()
+                    .addCriteria(filter.toContentCriteria())
+                    .limit(limit);
+            mongoTemplate.find(titleQuery, Content.class).forEach(content -> matches.putIfAbsent(content.getId(), content));
+        }
+
+        return matches.values().stream().limit(limit).toList();
+    }
+
     public Content findByPathname(String pathname, ContentType type) {
         return contentRepository.findByPathname(pathname, type)
                 .orElseThrow(() -> new ContentNotFoundException("Content not found with pathname: " + pathname + " and type: " + type));
     }
 
     public Page<Content> findByType(ContentType type, int page) {
-        Pageable pageable = PageRequest.of(page, 9);
+        Pageable pageable = PageRequest.of(page, LIST_PAGE_SIZE);
         return contentRepository.findByTypeAndVisibility(type, ContentVisibility.PUBLIC, pageable);
     }
 
+    public List<Content> findNewestByType(ContentType type, int limit) {
+        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return contentRepository.findActiveByTypeAndVisibility(type, ContentVisibility.PUBLIC, pageable);
+    }
+
     public Page<Content> findByTagAndType(String tag, ContentType type, int page) {
-        Pageable pageable = PageRequest.of(page, 9);
+        Pageable pageable = PageRequest.of(page, LIST_PAGE_SIZE);
         return contentRepository.findByTypeVisibilityAndTag(type, ContentVisibility.PUBLIC, tag, pageable);
     }
 
@@ -111,17 +194,14 @@ public class ContentService {
 
     public Page<Content> findEvents(int page) {
         LocalDateTime startOfToday = LocalDateTime.now().with(LocalTime.MIDNIGHT);
-        Pageable pageable = PageRequest.of(page, 50);
+        Pageable pageable = PageRequest.of(page, EVENT_PAGE_SIZE);
         return contentRepository.findEventsAfterStartTime(startOfToday, pageable);
     }
 
-    public List<String> getAllContentEntityUrls() {
-        List<Content> publicContent = contentRepository.findAllPublicContentPathnames();
-        String baseUrl = "https://fremontmi.com";
-
-        return publicContent.stream()
-                .map(content -> baseUrl + content.getPathname())
-                .collect(Collectors.toList());
+    // An array field sorts by its earliest day, which is close enough to order a short preview
+    public List<Content> findUpcomingEvents(int limit) {
+        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.ASC, "detail.days.startTime"));
+        return contentRepository.findActiveEventsAfterStartTime(LocalDateTime.now(), ContentVisibility.PUBLIC, pageable);
     }
 
     public Content update(ContentDto updatedContent) {
@@ -131,7 +211,52 @@ public class ContentService {
         content.getDetail().update(content, updatedContent);
         content.setUpdatedBy(userService.getUserId());
         content.setUpdatedAt(LocalDateTime.now());
-        return contentRepository.save(content);
+        content = contentRepository.save(content);
+        syncVectorFilterFields(content);
+        sitemapService.markStale();
+        contentChangeTokens.touch(content.getType());
+        pageCache.evictType(content.getType());
+        return content;
+    }
+
+    // Paid content goes live once its subscription is confirmed
+    public Content activate(Content content) {
+        content.setStatus(ContentStatus.ACTIVE);
+        content.setVisibility(ContentVisibility.PUBLIC);
+        content.setUpdatedAt(LocalDateTime.now());
+        content = contentRepository.save(content);
+        syncVectorFilterFields(content);
+        sitemapService.markStale();
+        contentChangeTokens.touch(content.getType());
+        pageCache.evictType(content.getType());
+        return content;
+    }
+
+    public Content updateStatus(String contentId, ContentStatus status) {
+        Content content = findById(contentId);
+        content.setStatus(status);
+        content = contentRepository.save(content);
+        syncVectorFilterFields(content);
+        sitemapService.markStale();
+        contentChangeTokens.touch(content.getType());
+        pageCache.evictType(content.getType());
+        return content;
+    }
+
+    // Keeps the denormalized filter fields on content_vectors in step with the content document
+    public void syncVectorFilterFields(Content content) {
+        ContentVector filterFields = new ContentVector();
+        filterFields.setFilterFields(content);
+
+        Update update = new Update()
+                .set("type", filterFields.getType())
+                .set("status", filterFields.getStatus())
+                .set("visibility", filterFields.getVisibility())
+                .set("lastEventStartTime", filterFields.getLastEventStartTime());
+
+        if (mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(content.getId())), update, ContentVector.class).getModifiedCount() > 0) {
+            semanticResultCache.invalidate();
+        }
     }
 
     public void archive(String contentId) {
@@ -142,7 +267,11 @@ public class ContentService {
         removeContentFromUserProfile(userProfile, content.getType(), ContentAction.CREATED, contentId);
         contentArchiveRepository.save(content);
         contentVectorRepository.deleteById(contentId);
+        semanticResultCache.invalidate();
         contentRepository.deleteById(contentId);
+        sitemapService.markStale();
+        contentChangeTokens.touch(content.getType());
+        pageCache.evictType(content.getType());
     }
 
     public void delete(String contentId) {
@@ -152,7 +281,11 @@ public class ContentService {
         tagService.removeTags(content.getTags(), content.getType());
         removeContentFromUserProfile(userProfile, content.getType(), ContentAction.CREATED, contentId);
         contentVectorRepository.deleteById(contentId);
+        semanticResultCache.invalidate();
         contentRepository.deleteById(contentId);
+        sitemapService.markStale();
+        contentChangeTokens.touch(content.getType());
+        pageCache.evictType(content.getType());
     }
 
     public void checkPermission(Content content) {
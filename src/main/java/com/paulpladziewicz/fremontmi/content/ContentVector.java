@@ -4,7 +4,11 @@ import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @Data
 @Document(collection = "content_vectors")
@@ -16,4 +20,45 @@ public class ContentVector {
     private String inputText;
 
     private List<Double> vector;
+
+    // Leading dimensions of 'vector', re-normalized, used for cheap candidate retrieval
+    private List<Double> shortVector;
+
+    private LocalDateTime updatedAt;
+
+    // Embedding provider and model that produced 'vector', e.g. "openai" / "text-embedding-3-large"
+    private String provider;
+
+    private String model;
+
+    // Copied from the content document so vector search can pre-filter without a lookup
+    private ContentType type;
+
+    private ContentStatus status;
+
+    private ContentVisibility visibility;
+
+    // Start of the last day of an event, null for other content types
+    private LocalDateTime lastEventStartTime;
+
+    // Set when the content changed underneath the embedding (e.g. its tags were merged); cleared by re-embedding
+    private boolean stale;
+
+    // Set while an instance re-embeds a stale vector, so others skip it; a crashed or failed attempt is retried once it passes
+    private Instant reembedClaimedUntil;
+
+    public void setFilterFields(Content content) {
+        this.type = content.getType();
+        this.status = content.getStatus();
+        this.visibility = content.getVisibility();
+        this.lastEventStartTime = null;
+
+        if (content.getDetail() instanceof Event event && event.getDays() != null) {
+            this.lastEventStartTime = event.getDays().stream()
+                    .map(DayEvent::getStartTime)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfills detail.descriptionHtml for content saved before it was rendered at write time.
+ * Runs after startup on every instance; once everything is migrated the first query comes
+ * back empty and this is a no-op.
+ */
+@Component
+public class DescriptionHtmlMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DescriptionHtmlMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public DescriptionHtmlMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection("content");
+        long start = System.currentTimeMillis();
+        int migrated = 0;
+
+        while (true) {
+            List<Document> batch = collection.find(Filters.and(
+                            Filters.type("detail.description", "string"),
+                            Filters.exists("detail.descriptionHtml", false)))
+                    .projection(Projections.include("detail.description"))
+                    .limit(BATCH_SIZE)
+                    .into(new ArrayList<>());
+
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<WriteModel<Document>> updates = new ArrayList<>(batch.size());
+            for (Document document : batch) {
+                String description = document.get("detail", Document.class).getString("description");
+                // Matching on the description read means a concurrent edit is never overwritten with stale HTML
+                updates.add(new UpdateOneModel<>(
+                        Filters.and(Filters.eq("_id", document.get("_id")), Filters.eq("detail.description", description)),
+                        Updates.set("detail.descriptionHtml", HtmlSanitizationService.renderDescription(description))));
+            }
+
+            int modified = collection.bulkWrite(updates).getModifiedCount();
+            migrated += modified;
+
+            if (modified == 0) {
+                break;
+            }
+        }
+
+        if (migrated > 0) {
+            logger.info("Rendered descriptionHtml for {} content documents in {} ms", migrated, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.content;
 
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import lombok.Data;
 import org.springframework.data.annotation.Transient;
 
@@ -17,6 +18,8 @@ public class Event implements ContentDetail {
 
     private String description;
 
+    private String descriptionHtml;
+
     private String locationName;
 
     private String address;
@@ -43,6 +46,7 @@ public class Event implements ContentDetail {
 
         setTitle(event.getTitle());
         setDescription(event.getDescription());
+        setDescriptionHtml(HtmlSanitizationService.renderDescription(event.getDescription()));
         setLocationName(event.getLocationName());
         setAddress(event.getAddress());
         setDays(event.getDays());
@@ -61,6 +65,21 @@ public class Event implements ContentDetail {
         }
     }
 
+    // Lists show the next upcoming day and how many more follow it
+    public void selectNextAvailableDay(LocalDateTime now) {
+        List<DayEvent> futureDayEvents = days.stream()
+                .filter(dayEvent -> dayEvent.getStartTime().isAfter(now))
+                .toList();
+
+        if (!futureDayEvents.isEmpty()) {
+            setNextAvailableDayEvent(futureDayEvents.getFirst());
+            setAvailableDayEventCount(futureDayEvents.size() - 1);
+        } else {
+            setNextAvailableDayEvent(null);
+            setAvailableDayEventCount(0);
+        }
+    }
+
     public void populateFormattedTimes(Event event) {
         List<String> formattedTimes = event.getDays().stream()
                 .flatMap(dayEvent -> Stream.of(
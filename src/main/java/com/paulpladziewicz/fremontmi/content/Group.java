@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.content;
 
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import lombok.Data;
 
 import java.util.ArrayList;
@@ -15,6 +16,8 @@ public class Group implements ContentDetail {
 
     private String description;
 
+    private String descriptionHtml;
+
     private String externalUrl;
 
     private Map<String, Object> images;
@@ -29,5 +32,6 @@ public class Group implements ContentDetail {
 
         setTitle(updatedGroup.getTitle());
         setDescription(updatedGroup.getDescription());
+        setDescriptionHtml(HtmlSanitizationService.renderDescription(updatedGroup.getDescription()));
     }
 }
@@ -86,14 +86,10 @@ public class InteractionService {
     }
 
     public void cancel(String contentId) {
-        Content content = contentService.findById(contentId);
-        content.setStatus(ContentStatus.CANCELLED);
-        contentService.save(content);
+        contentService.updateStatus(contentId, ContentStatus.CANCELLED);
     }
 
     public void reactivate(String contentId) {
-        Content content = contentService.findById(contentId);
-        content.setStatus(ContentStatus.ACTIVE);
-        contentService.save(content);
+        contentService.updateStatus(contentId, ContentStatus.ACTIVE);
     }
 }
@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.content;
 
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import lombok.Data;
 
 import java.util.ArrayList;
@@ -13,6 +14,8 @@ public class NeighborServicesProfile implements ContentDetail {
 
     private String description;
 
+    private String descriptionHtml;
+
     private String email;
 
     private List<NeighborService> neighborServices = new ArrayList<>();
@@ -35,6 +38,7 @@ public class NeighborServicesProfile implements ContentDetail {
 
         setTitle(profile.getTitle());
         setDescription(profile.getDescription());
+        setDescriptionHtml(HtmlSanitizationService.renderDescription(profile.getDescription()));
         setEmail(profile.getEmail());
         setNeighborServices(profile.getNeighborServices());
     }
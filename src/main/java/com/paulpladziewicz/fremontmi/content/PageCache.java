@@ -0,0 +1,210 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Rendered pages for anonymous visitors, keyed by URL and bounded by total bytes (least recently
+ * used first out). Content writes on this instance evict the affected pages directly. Other
+ * instances poll for them: structural changes through the per-type change tokens, which drop the
+ * whole type, and in-place changes through page_evictions, which name the content whose page and
+ * listings to drop. The TTL is the backstop for both.
+ */
+@Component
+public class PageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+
+    // Instance clocks are not perfectly aligned, so each poll re-reads a little of the previous window
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+
+    private static final Map<ContentType, String> LIST_PATHS = Map.of(
+            ContentType.GROUP, "/groups",
+            ContentType.EVENT, "/events",
+            ContentType.BUSINESS, "/businesses",
+            ContentType.NEIGHBOR_SERVICES_PROFILE, "/neighbor-services");
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ContentChangeTokens contentChangeTokens;
+    private final MongoTemplate mongoTemplate;
+    private final long maxBytes;
+    private final Duration ttl;
+
+    private final LinkedHashMap<String, CachedPage> pages = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // Bumped on every eviction so a render that raced with a write is not stored afterwards
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Map<ContentType, Long> knownSequences;
+
+    private volatile Instant lastEvictionSync = Instant.now();
+
+    public PageCache(ContentChangeTokens contentChangeTokens, MongoTemplate mongoTemplate,
+                     @Value("${page.cache.max-bytes:33554432}") long maxBytes,
+                     @Value("${page.cache.ttl:PT5M}") Duration ttl) {
+        this.contentChangeTokens = contentChangeTokens;
+        this.mongoTemplate = mongoTemplate;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+    }
+
+    public synchronized CachedPage find(String key) {
+        CachedPage page = pages.get(key);
+
+        if (page != null && page.getCreatedAt().plus(ttl).isBefore(Instant.now())) {
+            remove(key);
+            page = null;
+        }
+
+        (page != null ? hits : misses).incrementAndGet();
+        return page;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, String pathname, String contentType, byte[] body, String csrfToken, long renderedAtGeneration) {
+        if (renderedAtGeneration != generation.get() || body.length > maxBytes / 8) {
+            return;
+        }
+
+        // Compressed before taking the lock so concurrent lookups never wait on deflate
+        CachedPage page = CachedPage.of(pathname, typeOf(pathname), contentType, body, csrfToken);
+        store(key, page, renderedAtGeneration);
+    }
+
+    private synchronized void store(String key, CachedPage page, long renderedAtGeneration) {
+        if (renderedAtGeneration != generation.get()) {
+            return;
+        }
+
+        remove(key);
+        pages.put(key, page);
+        totalBytes += page.getSize();
+
+        Iterator<CachedPage> eldest = pages.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getSize();
+            eldest.remove();
+        }
+    }
+
+    // For in-place changes (hearts, members, status): the content's own page and its type's listings
+    public void evictContent(Content content) {
+        evictPathname(content.getPathname(), content.getType());
+
+        PageEviction eviction = new PageEviction();
+        eviction.setPathname(content.getPathname());
+        eviction.setType(content.getType());
+        eviction.setOrigin(instanceId);
+        eviction.setAt(Instant.now());
+        mongoTemplate.insert(eviction);
+    }
+
+    private void evictPathname(String pathname, ContentType type) {
+        String listPath = LIST_PATHS.get(type);
+        evict(page -> Objects.equals(page.getPathname(), pathname)
+                || (listPath != null && (page.getPathname().equals(listPath) || page.getPathname().startsWith(listPath + "/"))));
+    }
+
+    // Titles and descriptions also appear as related content on other pages of the same type
+    public void evictType(ContentType type) {
+        evict(page -> page.getType() == type);
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(pages.size(), totalBytes, hits.get(), misses.get());
+    }
+
+    @Scheduled(fixedDelayString = "${page.cache.sync-interval:PT5S}")
+    public void evictChangedTypes() {
+        Map<ContentType, Long> sequences = contentChangeTokens.currentAll();
+
+        if (knownSequences != null) {
+            for (ContentType type : ContentType.values()) {
+                if (!Objects.equals(knownSequences.get(type), sequences.get(type))) {
+                    evictType(type);
+                }
+            }
+        }
+
+        knownSequences = new EnumMap<>(sequences);
+    }
+
+    // The window only moves forward after a successful read, so a failed poll is retried on the next one
+    @Scheduled(fixedDelayString = "${page.cache.sync-interval:PT5S}")
+    public void evictPublishedPages() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("at").gt(lastEvictionSync.minus(CLOCK_SKEW)).and("origin").ne(instanceId));
+        query.fields().include("pathname", "type");
+
+        mongoTemplate.find(query, PageEviction.class).forEach(eviction -> evictPathname(eviction.getPathname(), eviction.getType()));
+        lastEvictionSync = now;
+    }
+
+    private synchronized void evict(Predicate<CachedPage> predicate) {
+        generation.incrementAndGet();
+        int evicted = 0;
+
+        Iterator<CachedPage> iterator = pages.values().iterator();
+        while (iterator.hasNext()) {
+            CachedPage page = iterator.next();
+            if (predicate.test(page)) {
+                totalBytes -= page.getSize();
+                iterator.remove();
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            logger.debug("Evicted {} cached pages", evicted);
+        }
+    }
+
+    private void remove(String key) {
+        CachedPage removed = pages.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.getSize();
+        }
+    }
+
+    private static ContentType typeOf(String pathname) {
+        for (ContentType type : ContentType.values()) {
+            if (pathname.startsWith("/" + type.toHyphenatedString() + "/")) {
+                return type;
+            }
+        }
+        for (Map.Entry<ContentType, String> listPath : LIST_PATHS.entrySet()) {
+            if (pathname.equals(listPath.getValue()) || pathname.startsWith(listPath.getValue() + "/")) {
+                return listPath.getKey();
+            }
+        }
+        return null;
+    }
+
+    public record Stats(int pages, long bytes, long hits, long misses) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// An in-place change to one piece of content; other instances drop its page and its type's listings
+@Data
+@Document(collection = "page_evictions")
+public class PageEviction {
+
+    @Id
+    private String id;
+
+    private String pathname;
+
+    private ContentType type;
+
+    // Instance that made the change, which evicted its own pages when it wrote
+    private String origin;
+
+    // Pages outlive this only up to the page cache TTL, so an hour is plenty
+    @Indexed(expireAfter = "1h")
+    private Instant at;
+}
@@ -0,0 +1,57 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Read-only counterpart of ContentService for the streaming API. Runs the same queries as the
+ * repository methods behind /api/events and /api/groups, but on the async driver, so a slow
+ * client holds a cursor rather than a thread. Documents are pulled from the cursor in small
+ * batches as the client consumes the response.
+ */
+@Service
+public class ReactiveContentService {
+
+    @Value("${reactive.read.batch-size:16}")
+    private int batchSize;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveContentService(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    public Flux<Content> streamEvents(int page) {
+        LocalDateTime startOfToday = LocalDateTime.now().with(LocalTime.MIDNIGHT);
+        LocalDateTime now = LocalDateTime.now();
+
+        Query query = Query.query(Criteria.where("detail.days.startTime").gte(startOfToday))
+                .with(PageRequest.of(page, ContentService.EVENT_PAGE_SIZE));
+
+        return find(query)
+                .doOnNext(content -> {
+                    if (content.getDetail() instanceof Event event) {
+                        event.selectNextAvailableDay(now);
+                    }
+                });
+    }
+
+    public Flux<Content> streamByType(ContentType type, int page) {
+        Query query = Query.query(Criteria.where("type").is(type).and("visibility").is(ContentVisibility.PUBLIC))
+                .with(PageRequest.of(page, ContentService.LIST_PAGE_SIZE));
+
+        return find(query);
+    }
+
+    private Flux<Content> find(Query query) {
+        return reactiveMongoTemplate.find(query.cursorBatchSize(batchSize), Content.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.paulpladziewicz.fremontmi.controllers;
+
+import com.paulpladziewicz.fremontmi.app.config.ExecutorMetrics;
+import com.paulpladziewicz.fremontmi.app.config.SessionGrowthMonitor;
+import com.paulpladziewicz.fremontmi.app.config.VirtualThreadPinningMonitor;
+import com.paulpladziewicz.fremontmi.content.PageCache;
+import com.paulpladziewicz.fremontmi.discovery.SearchAnalyticsService;
+import com.paulpladziewicz.fremontmi.discovery.SearchRollup;
+import com.paulpladziewicz.fremontmi.discovery.SearchRollupGranularity;
+import com.paulpladziewicz.fremontmi.discovery.SemanticResultCache;
+import com.paulpladziewicz.fremontmi.discovery.Tag;
+import com.paulpladziewicz.fremontmi.discovery.TagMergeRequest;
+import com.paulpladziewicz.fremontmi.discovery.TagMergeResult;
+import com.paulpladziewicz.fremontmi.discovery.TagReconciliationReport;
+import com.paulpladziewicz.fremontmi.discovery.TagReconciliationService;
+import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.VectorService;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final VectorService vectorService;
+    private final SearchAnalyticsService searchAnalyticsService;
+    private final TagService tagService;
+    private final TagReconciliationService tagReconciliationService;
+    private final PageCache pageCache;
+    private final ExecutorMetrics executorMetrics;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+    private final SessionGrowthMonitor sessionGrowthMonitor;
+
+    public AdminController(VectorService vectorService, SearchAnalyticsService searchAnalyticsService, TagService tagService, TagReconciliationService tagReconciliationService, PageCache pageCache,
+                           ExecutorMetrics executorMetrics, ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor, SessionGrowthMonitor sessionGrowthMonitor) {
+        this.vectorService = vectorService;
+        this.searchAnalyticsService = searchAnalyticsService;
+        this.tagService = tagService;
+        this.tagReconciliationService = tagReconciliationService;
+        this.pageCache = pageCache;
+        this.executorMetrics = executorMetrics;
+        this.pinningMonitor = pinningMonitor;
+        this.sessionGrowthMonitor = sessionGrowthMonitor;
+    }
+
+    @GetMapping("/vectors/cache")
+    public ResponseEntity<SemanticResultCache.Stats> getSemanticCacheStats() {
+        return ResponseEntity.ok(vectorService.getCacheStats());
+    }
+
+    @GetMapping("/pages/cache")
+    public ResponseEntity<PageCache.Stats> getPageCacheStats() {
+        return ResponseEntity.ok(pageCache.getStats());
+    }
+
+    @GetMapping("/executors")
+    public ResponseEntity<Map<String, Object>> getExecutorStats() {
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        return ResponseEntity.ok(Map.of(
+                "virtualThreads", monitor != null,
+                "executors", executorMetrics.getStats(),
+                "pinningSites", monitor != null ? monitor.getPinningSites() : Map.of()));
+    }
+
+    @PostMapping("/vectors/short-vectors")
+    public ResponseEntity<String> backfillShortVectors() {
+        int updated = vectorService.backfillShortVectors();
+        return ResponseEntity.ok("updated " + updated);
+    }
+
+    @PostMapping("/vectors/filter-fields")
+    public ResponseEntity<String> backfillFilterFields() {
+        int updated = vectorService.backfillFilterFields();
+        return ResponseEntity.ok("updated " + updated);
+    }
+
+    @GetMapping("/sessions")
+    public ResponseEntity<SessionGrowthMonitor.Stats> getSessionGrowth() {
+        return ResponseEntity.ok(sessionGrowthMonitor.getStats());
+    }
+
+    @GetMapping("/search-analytics")
+    public ResponseEntity<List<SearchRollup>> getSearchAnalytics(@RequestParam(defaultValue = "HOURLY") SearchRollupGranularity granularity,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(granularity == SearchRollupGranularity.HOURLY ? 2 : 30);
+
+        return ResponseEntity.ok(searchAnalyticsService.getRollups(granularity, start, end));
+    }
+
+    @GetMapping("/tags/unreviewed")
+    public ResponseEntity<List<Tag>> getUnreviewedTags() {
+        return ResponseEntity.ok(tagService.findUnreviewedTags());
+    }
+
+    @PostMapping("/tags/{name}/reviewed")
+    public ResponseEntity<Void> markTagReviewed(@PathVariable String name) {
+        try {
+            tagService.markReviewed(name);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/tags/merge")
+    public ResponseEntity<TagMergeResult> mergeTags(@RequestBody TagMergeRequest request) {
+        if (request.target() == null || request.sources() == null || request.sources().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(tagService.mergeTags(request.target(), request.sources()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/tags/reconciliation")
+    public ResponseEntity<TagReconciliationReport> getLastTagReconciliation() {
+        return tagReconciliationService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/tags/reconciliation")
+    public ResponseEntity<TagReconciliationReport> reconcileTags() {
+        return ResponseEntity.ok(tagReconciliationService.reconcile());
+    }
+}
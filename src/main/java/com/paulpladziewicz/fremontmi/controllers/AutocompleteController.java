@@ -0,0 +1,28 @@
+package com.paulpladziewicz.fremontmi.controllers;
+
+import com.paulpladziewicz.fremontmi.discovery.AutocompleteService;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+
+    public AutocompleteController(AutocompleteService autocompleteService) {
+        this.autocompleteService = autocompleteService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<String>> complete(@RequestParam(name = "q", defaultValue = "") String query) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(autocompleteService.complete(query));
+    }
+}
@@ -1,34 +1,40 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
-import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import com.paulpladziewicz.fremontmi.app.exceptions.UserNotAuthenticatedException;
 import com.paulpladziewicz.fremontmi.content.Business;
 import com.paulpladziewicz.fremontmi.content.BusinessDto;
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentCacheValidators;
 import com.paulpladziewicz.fremontmi.content.ContentService;
 import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.TagSpellingIndex;
 import com.paulpladziewicz.fremontmi.user.UserService;
 
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 
 @Controller
 public class BusinessController {
 
-    private final HtmlSanitizationService htmlSanitizationService;
     private final ContentService contentService;
     private final UserService userService;
+    private final TagService tagService;
+    private final ContentCacheValidators contentCacheValidators;
 
-    public BusinessController(HtmlSanitizationService htmlSanitizationService, ContentService contentService, UserService userService) {
-        this.htmlSanitizationService = htmlSanitizationService;
+    public BusinessController(ContentService contentService, UserService userService, TagService tagService, ContentCacheValidators contentCacheValidators) {
         this.contentService = contentService;
         this.userService = userService;
+        this.tagService = tagService;
+        this.contentCacheValidators = contentCacheValidators;
     }
 
     @GetMapping("/create/business")
@@ -56,8 +62,11 @@ public class BusinessController {
     public String displayActiveBusinesses(@RequestParam(value = "tag", required = false) String tag, @RequestParam(defaultValue = "0") int page,  Model model) {
         Page<Content> businesses;
         if (tag != null && !tag.isEmpty()) {
-            businesses = contentService.findByTagAndType(tag, ContentType.BUSINESS, page);
-
+            Optional<TagSpellingIndex.TagMatch> tagMatch = tagService.resolveTag(tag);
+            // No tag is even close, so there is nothing to query for
+            businesses = tagMatch.map(match -> contentService.findByTagAndType(match.displayName(), ContentType.BUSINESS, page))
+                    .orElseGet(() -> Page.empty(PageRequest.of(page, 9)));
+            model.addAllAttributes(tagService.tagMatchAttributes(tag, tagMatch));
         } else {
             businesses = contentService.findByType(ContentType.BUSINESS, page);
         }
@@ -69,11 +78,15 @@ public class BusinessController {
     }
 
     @GetMapping("/business/{slug}")
-    public String viewBusiness(@PathVariable String slug, Model model) {
-        Content content = contentService.findByPathname('/' + ContentType.BUSINESS.toHyphenatedString() + '/' + slug, ContentType.BUSINESS);
-        Business detail = (Business) content.getDetail();
+    public String viewBusiness(@PathVariable String slug, Model model, WebRequest webRequest) {
+        String pathname = '/' + ContentType.BUSINESS.toHyphenatedString() + '/' + slug;
+        if (contentCacheValidators.checkDetailNotModified(webRequest, pathname, ContentType.BUSINESS, "page")) {
+            return null;
+        }
+
+        Content content = contentService.findByPathname(pathname, ContentType.BUSINESS);
 
-        detail.setDescription(htmlSanitizationService.sanitizeHtml(detail.getDescription().replace("\n", "<br/>")));
+        model.addAttribute("relatedContent", contentService.findRelatedContent(content));
 
         String userId;
         try {
@@ -1,8 +1,8 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
-import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import com.paulpladziewicz.fremontmi.app.exceptions.UserNotAuthenticatedException;
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentCacheValidators;
 import com.paulpladziewicz.fremontmi.content.ContentService;
 import com.paulpladziewicz.fremontmi.content.ContentStatus;
 import com.paulpladziewicz.fremontmi.content.ContentType;
@@ -20,6 +20,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -30,7 +31,6 @@ import java.util.Map;
 @Controller
 public class EventController {
 
-    private final HtmlSanitizationService htmlSanitizationService;
 
     private final ContentService contentService;
 
@@ -38,11 +38,13 @@ public class EventController {
 
     private final InteractionService interactionService;
 
-    public EventController(HtmlSanitizationService htmlSanitizationService, ContentService contentService, UserService userService, InteractionService interactionService) {
-        this.htmlSanitizationService = htmlSanitizationService;
+    private final ContentCacheValidators contentCacheValidators;
+
+    public EventController(ContentService contentService, UserService userService, InteractionService interactionService, ContentCacheValidators contentCacheValidators) {
         this.contentService = contentService;
         this.userService = userService;
         this.interactionService = interactionService;
+        this.contentCacheValidators = contentCacheValidators;
     }
 
     @GetMapping("/create/event")
@@ -113,24 +115,18 @@ public class EventController {
     }
 
     @GetMapping("/api/events")
-    public ResponseEntity<Page<Content>> getEvents(@RequestParam(defaultValue = "0") int page) {
-        Page<Content> events = contentService.findEvents(page);
-
+    public ResponseEntity<Page<Content>> getEvents(@RequestParam(defaultValue = "0") int page, WebRequest webRequest) {
         LocalDateTime now = LocalDateTime.now();
 
+        if (contentCacheValidators.checkEventListNotModified(webRequest, now, String.valueOf(page))) {
+            return null;
+        }
+
+        Page<Content> events = contentService.findEvents(page);
+
         events.getContent().forEach(obj -> {
             if (obj.getDetail() instanceof Event event) {
-                List<DayEvent> futureDayEvents = event.getDays().stream()
-                        .filter(dayEvent -> dayEvent.getStartTime().isAfter(now))
-                        .toList();
-
-                if (!futureDayEvents.isEmpty()) {
-                    event.setNextAvailableDayEvent(futureDayEvents.get(0));
-                    event.setAvailableDayEventCount(futureDayEvents.size() - 1);
-                } else {
-                    event.setNextAvailableDayEvent(null);
-                    event.setAvailableDayEventCount(0);
-                }
+                event.selectNextAvailableDay(now);
             }
         });
 
@@ -145,17 +141,7 @@ public class EventController {
 
         events.getContent().forEach(obj -> {
             if (obj.getDetail() instanceof Event event) {
-                List<DayEvent> futureDayEvents = event.getDays().stream()
-                        .filter(dayEvent -> dayEvent.getStartTime().isAfter(now))
-                        .toList();
-
-                if (!futureDayEvents.isEmpty()) {
-                    event.setNextAvailableDayEvent(futureDayEvents.getFirst());
-                    event.setAvailableDayEventCount(futureDayEvents.size() - 1);
-                } else {
-                    event.setNextAvailableDayEvent(null);
-                    event.setAvailableDayEventCount(0);
-                }
+                event.selectNextAvailableDay(now);
             }
         });
 
@@ -173,17 +159,20 @@ public class EventController {
     }
 
     @GetMapping("/event/{slug}")
-    public String displayEvent(@PathVariable String slug, @RequestParam(required = false, defaultValue = "false") boolean partial, Model model) {
-        Content content = contentService.findByPathname('/' + ContentType.EVENT.toHyphenatedString() + '/' + slug, ContentType.EVENT);
-        Event detail = (Event) content.getDetail();
+    public String displayEvent(@PathVariable String slug, @RequestParam(required = false, defaultValue = "false") boolean partial, Model model, WebRequest webRequest) {
+        String pathname = '/' + ContentType.EVENT.toHyphenatedString() + '/' + slug;
+        if (contentCacheValidators.checkDetailNotModified(webRequest, pathname, ContentType.EVENT, partial ? "partial" : "page")) {
+            return null;
+        }
 
-        detail.setDescription(htmlSanitizationService.sanitizeHtml(detail.getDescription().replace("\n", "<br/>")));
+        Content content = contentService.findByPathname(pathname, ContentType.EVENT);
 
         if (content.getStatus() == ContentStatus.CANCELLED) {
             model.addAttribute("canceled", "This event has been canceled.");
         }
 
         model.addAttribute("event", content);
+        model.addAttribute("relatedContent", contentService.findRelatedContent(content));
 
         try {
             String userId = userService.getUserId();
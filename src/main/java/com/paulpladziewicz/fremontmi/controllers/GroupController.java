@@ -1,13 +1,15 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
-import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import com.paulpladziewicz.fremontmi.app.exceptions.UserNotAuthenticatedException;
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentCacheValidators;
 import com.paulpladziewicz.fremontmi.content.ContentService;
 import com.paulpladziewicz.fremontmi.content.ContentType;
 import com.paulpladziewicz.fremontmi.content.Group;
 import com.paulpladziewicz.fremontmi.content.GroupDto;
 import com.paulpladziewicz.fremontmi.content.InteractionService;
+import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.TagSpellingIndex;
 import com.paulpladziewicz.fremontmi.notification.EmailRequest;
 import com.paulpladziewicz.fremontmi.notification.NotificationService;
 import com.paulpladziewicz.fremontmi.user.UserService;
@@ -15,19 +17,21 @@ import com.paulpladziewicz.fremontmi.user.UserService;
 import jakarta.validation.Valid;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 public class GroupController {
 
-    private final HtmlSanitizationService htmlSanitizationService;
 
     private final ContentService contentService;
     private final NotificationService notificationService;
@@ -35,14 +39,17 @@ public class GroupController {
     InteractionService interactionService;
 
     private final UserService userService;
+    private final TagService tagService;
+    private final ContentCacheValidators contentCacheValidators;
 
 
-    public GroupController(HtmlSanitizationService htmlSanitizationService, ContentService contentService, UserService userService, InteractionService interactionService, NotificationService notificationService) {
-        this.htmlSanitizationService = htmlSanitizationService;
+    public GroupController(ContentService contentService, UserService userService, InteractionService interactionService, NotificationService notificationService, TagService tagService, ContentCacheValidators contentCacheValidators) {
         this.contentService = contentService;
         this.userService = userService;
         this.interactionService = interactionService;
         this.notificationService = notificationService;
+        this.tagService = tagService;
+        this.contentCacheValidators = contentCacheValidators;
     }
 
     @GetMapping("/create/group")
@@ -66,8 +73,11 @@ public class GroupController {
     public String displayGroups(@RequestParam(value = "tag", required = false) String tag, @RequestParam(defaultValue = "0") int page, Model model) {
         Page<Content> groups;
         if (tag != null && !tag.isEmpty()) {
-            groups = contentService.findByTagAndType(tag, ContentType.GROUP, page);
-
+            Optional<TagSpellingIndex.TagMatch> tagMatch = tagService.resolveTag(tag);
+            // No tag is even close, so there is nothing to query for
+            groups = tagMatch.map(match -> contentService.findByTagAndType(match.displayName(), ContentType.GROUP, page))
+                    .orElseGet(() -> Page.empty(PageRequest.of(page, 9)));
+            model.addAllAttributes(tagService.tagMatchAttributes(tag, tagMatch));
         } else {
             groups = contentService.findByType(ContentType.GROUP, page);
         }
@@ -78,7 +88,11 @@ public class GroupController {
     }
 
     @GetMapping("/api/groups")
-    public ResponseEntity<Page<Content>> getEvents(@RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<Page<Content>> getEvents(@RequestParam(defaultValue = "0") int page, WebRequest webRequest) {
+        if (contentCacheValidators.checkListNotModified(webRequest, ContentType.GROUP, String.valueOf(page))) {
+            return null;
+        }
+
         Page<Content> groups = contentService.findByType(ContentType.GROUP, page);
 
         return ResponseEntity.ok(groups);
@@ -93,13 +107,16 @@ public class GroupController {
     }
 
     @GetMapping("/group/{slug}")
-    public String displayGroup(@PathVariable String slug, Model model) {
-        Content group = contentService.findByPathname('/' + ContentType.GROUP.toHyphenatedString() + '/' + slug, ContentType.GROUP);
-        Group detail = (Group) group.getDetail();
+    public String displayGroup(@PathVariable String slug, Model model, WebRequest webRequest) {
+        String pathname = '/' + ContentType.GROUP.toHyphenatedString() + '/' + slug;
+        if (contentCacheValidators.checkDetailNotModified(webRequest, pathname, ContentType.GROUP, "page")) {
+            return null;
+        }
 
-        detail.setDescription(htmlSanitizationService.sanitizeHtml(detail.getDescription().replace("\n", "<br/>")));
+        Content group = contentService.findByPathname(pathname, ContentType.GROUP);
 
         model.addAttribute("group", group);
+        model.addAttribute("relatedContent", contentService.findRelatedContent(group));
         model.addAttribute("adminCount", group.getAdministrators().size());
         model.addAttribute("memberCount", group.getParticipants().size());
 
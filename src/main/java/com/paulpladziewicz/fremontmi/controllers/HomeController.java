@@ -1,6 +1,9 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
+import com.paulpladziewicz.fremontmi.app.HomeFeedService;
+import com.paulpladziewicz.fremontmi.app.WarmupService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,11 +16,25 @@ public class HomeController {
     @Value("${stripe.publishable.key}")
     private String stripePublicKey;
 
+    private final WarmupService warmupService;
+    private final HomeFeedService homeFeedService;
+
+    public HomeController(WarmupService warmupService, HomeFeedService homeFeedService) {
+        this.warmupService = warmupService;
+        this.homeFeedService = homeFeedService;
+    }
+
     @GetMapping("/")
     public String home() {
         return "home";
     }
 
+    @GetMapping("/api/home")
+    @ResponseBody
+    public ResponseEntity<HomeFeedService.HomeFeed> getHomeFeed() {
+        return ResponseEntity.ok(homeFeedService.getHomeFeed());
+    }
+
     @GetMapping("/about")
     public String about() {
         return "about";
@@ -57,6 +74,9 @@ public class HomeController {
     @GetMapping("/health")
     @ResponseBody
     public ResponseEntity<String> healthCheck() {
+        if (!warmupService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Warming up");
+        }
         return ResponseEntity.ok("Healthy");
     }
 }
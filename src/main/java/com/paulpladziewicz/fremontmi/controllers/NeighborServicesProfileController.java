@@ -1,31 +1,33 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
-import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
 import com.paulpladziewicz.fremontmi.app.exceptions.ContentNotFoundException;
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentCacheValidators;
 import com.paulpladziewicz.fremontmi.content.ContentService;
 import com.paulpladziewicz.fremontmi.content.ContentType;
 import com.paulpladziewicz.fremontmi.content.NeighborService;
 import com.paulpladziewicz.fremontmi.content.NeighborServicesProfile;
 import com.paulpladziewicz.fremontmi.content.NeighborServicesProfileDto;
 import com.paulpladziewicz.fremontmi.discovery.TagService;
+import com.paulpladziewicz.fremontmi.discovery.TagSpellingIndex;
 import com.paulpladziewicz.fremontmi.discovery.TagUsage;
 import com.paulpladziewicz.fremontmi.user.UserService;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 
 @Controller
 public class NeighborServicesProfileController {
 
-    private final HtmlSanitizationService htmlSanitizationService;
 
     private final ContentService contentService;
 
@@ -33,11 +35,13 @@ public class NeighborServicesProfileController {
 
     private final UserService userService;
 
-    public NeighborServicesProfileController(HtmlSanitizationService htmlSanitizationService, ContentService contentService, TagService tagService, UserService userService) {
-        this.htmlSanitizationService = htmlSanitizationService;
+    private final ContentCacheValidators contentCacheValidators;
+
+    public NeighborServicesProfileController(ContentService contentService, TagService tagService, UserService userService, ContentCacheValidators contentCacheValidators) {
         this.contentService = contentService;
         this.tagService = tagService;
         this.userService = userService;
+        this.contentCacheValidators = contentCacheValidators;
     }
 
     @GetMapping("/overview/neighbor-services")
@@ -85,16 +89,21 @@ public class NeighborServicesProfileController {
     @GetMapping("/neighbor-services")
     public String displayActiveNeighborServices(@RequestParam(value = "tag", required = false) String tag, @RequestParam(defaultValue = "0") int page,  Model model) {
         Page<Content> profiles;
+        String selectedTag = tag;
         if (tag != null && !tag.isEmpty()) {
-            profiles = contentService.findByTagAndType(tag, ContentType.NEIGHBOR_SERVICES_PROFILE, page);
-
+            Optional<TagSpellingIndex.TagMatch> tagMatch = tagService.resolveTag(tag);
+            selectedTag = tagMatch.map(TagSpellingIndex.TagMatch::displayName).orElse(tag);
+            // No tag is even close, so there is nothing to query for
+            profiles = tagMatch.map(match -> contentService.findByTagAndType(match.displayName(), ContentType.NEIGHBOR_SERVICES_PROFILE, page))
+                    .orElseGet(() -> Page.empty(PageRequest.of(page, 9)));
+            model.addAllAttributes(tagService.tagMatchAttributes(tag, tagMatch));
         } else {
             profiles = contentService.findByType(ContentType.NEIGHBOR_SERVICES_PROFILE, page);
         }
 
         List<TagUsage> popularTags = tagService.getTagUsageFromContent(profiles, 15);
         model.addAttribute("popularTags", popularTags);
-        model.addAttribute("selectedTag", tag);
+        model.addAttribute("selectedTag", selectedTag);
 
         // TODO still displaying profiles that do not have any neighbor services
 
@@ -105,9 +114,13 @@ public class NeighborServicesProfileController {
     }
 
     @GetMapping("/neighbor-services-profile/{slug}")
-    public String viewNeighborService(@PathVariable String slug, Model model) {
-        Content content = contentService.findByPathname('/' + ContentType.NEIGHBOR_SERVICES_PROFILE.toHyphenatedString() + '/' + slug, ContentType.NEIGHBOR_SERVICES_PROFILE);
-        NeighborServicesProfile  detail = (NeighborServicesProfile) content.getDetail();
+    public String viewNeighborService(@PathVariable String slug, Model model, WebRequest webRequest) {
+        String pathname = '/' + ContentType.NEIGHBOR_SERVICES_PROFILE.toHyphenatedString() + '/' + slug;
+        if (contentCacheValidators.checkDetailNotModified(webRequest, pathname, ContentType.NEIGHBOR_SERVICES_PROFILE, "page")) {
+            return null;
+        }
+
+        Content content = contentService.findByPathname(pathname, ContentType.NEIGHBOR_SERVICES_PROFILE);
 
         boolean createdByUser;
         try {
@@ -123,8 +136,6 @@ public class NeighborServicesProfileController {
 //            }
 //        }
 
-        detail.setDescription(htmlSanitizationService.sanitizeHtml(detail.getDescription().replace("\n", "<br/>")));
-
         model.addAttribute("neighborServicesProfile", content);
         model.addAttribute("myProfile", createdByUser);
 
@@ -142,9 +153,6 @@ public class NeighborServicesProfileController {
 
             Content content = optionalContent.get();
 
-            NeighborServicesProfile detail = (NeighborServicesProfile) content.getDetail();
-
-            detail.setDescription(htmlSanitizationService.sanitizeHtml(detail.getDescription().replace("\n", "<br/>")));
 
             model.addAttribute("neighborServicesProfile", content);
             model.addAttribute("myProfile", true);
@@ -1,54 +1,58 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.paulpladziewicz.fremontmi.content.ContentService;
+import com.paulpladziewicz.fremontmi.discovery.SitemapService;
 
-import jakarta.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.List;
+import java.time.Duration;
 
 @RestController
 public class SitemapController {
 
-    private final ContentService contentService;
+    private final SitemapService sitemapService;
 
-    public SitemapController(ContentService contentService) {
-        this.contentService = contentService;
+    public SitemapController(SitemapService sitemapService) {
+        this.sitemapService = sitemapService;
     }
 
     @GetMapping(value = "/sitemap.xml", produces = "application/xml")
-    public void generateSitemap(HttpServletResponse response) throws IOException {
-        List<String> urls = contentService.getAllContentEntityUrls();
-
-        response.setContentType("application/xml");
-        response.setStatus(HttpServletResponse.SC_OK);
-        PrintWriter writer = response.getWriter();
-
-        writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-        writer.println("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">");
-
-        // Main Pages
-        writer.println("<url><loc>https://fremontmi.com/</loc><changefreq>daily</changefreq><priority>1.0</priority></url>");
-
-        // Articles
-        writer.println("<url><loc>https://fremontmi.com/articles/parks</loc><changefreq>monthly</changefreq><priority>0.5</priority></url>");
-        writer.println("<url><loc>https://fremontmi.com/articles/coming-soon-taqueria-de-gallo</loc><changefreq>monthly</changefreq><priority>0.5</priority></url>");
-        writer.println("<url><loc>https://fremontmi.com/articles/share-the-joy-give-toys-spread-smiles</loc><changefreq>monthly</changefreq><priority>0.5</priority></url>");
-        writer.println("<url><loc>https://fremontmi.com/articles/cozy-cups</loc><changefreq>monthly</changefreq><priority>0.5</priority></url>");
-
-        // Content entities
-        for (String url : urls) {
-            writer.println("<url>");
-            writer.println("<loc>" + url + "</loc>");
-            writer.println("<changefreq>weekly</changefreq>");
-            writer.println("<priority>0.5</priority>");
-            writer.println("</url>");
+    public ResponseEntity<byte[]> getSitemap(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, WebRequest webRequest) {
+        return serve(SitemapService.INDEX_NAME, acceptEncoding, webRequest);
+    }
+
+    // Only exists once the sitemap is split into an index
+    @GetMapping(value = "/sitemap-{number:\\d+}.xml", produces = "application/xml")
+    public ResponseEntity<byte[]> getSitemapPart(@PathVariable int number, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, WebRequest webRequest) {
+        return serve("sitemap-" + number + ".xml", acceptEncoding, webRequest);
+    }
+
+    private ResponseEntity<byte[]> serve(String name, String acceptEncoding, WebRequest webRequest) {
+        SitemapService.SitemapFile file = sitemapService.getFile(name).orElse(null);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (webRequest.checkNotModified(file.etag(), file.lastModified().toEpochMilli())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_XML)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(file.gzip());
         }
 
-        writer.println("</urlset>");
-        writer.flush();
+        return response.body(file.xml());
     }
-}
\ No newline at end of file
+}
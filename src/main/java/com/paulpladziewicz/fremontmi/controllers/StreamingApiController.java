@@ -0,0 +1,81 @@
+package com.paulpladziewicz.fremontmi.controllers;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentCacheValidators;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.content.ReactiveContentService;
+import com.paulpladziewicz.fremontmi.discovery.ReactiveSearchService;
+import com.paulpladziewicz.fremontmi.discovery.VectorSearchDto;
+import com.paulpladziewicz.fremontmi.discovery.VectorSearchFilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * NDJSON variants of the SPA's read endpoints, selected when a client sends
+ * {@code Accept: application/x-ndjson}; the JSON handlers on the same paths are untouched. Each
+ * item is written as soon as the async driver yields it and the next one is only requested once
+ * it has been flushed, so a slow reader throttles its own cursor and no request thread waits on
+ * Mongo or OpenAI.
+ */
+@RestController
+public class StreamingApiController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingApiController.class);
+
+    private final ReactiveContentService reactiveContentService;
+    private final ReactiveSearchService reactiveSearchService;
+    private final ContentCacheValidators contentCacheValidators;
+
+    public StreamingApiController(ReactiveContentService reactiveContentService, ReactiveSearchService reactiveSearchService, ContentCacheValidators contentCacheValidators) {
+        this.reactiveContentService = reactiveContentService;
+        this.reactiveSearchService = reactiveSearchService;
+        this.contentCacheValidators = contentCacheValidators;
+    }
+
+    @GetMapping(value = "/api/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Content> streamEvents(@RequestParam(defaultValue = "0") int page, WebRequest webRequest) {
+        if (contentCacheValidators.checkEventListNotModified(webRequest, LocalDateTime.now(), page + ":ndjson")) {
+            return null;
+        }
+
+        return reactiveContentService.streamEvents(page)
+                .doOnError(e -> logger.error("Streaming events page {} failed", page, e));
+    }
+
+    @GetMapping(value = "/api/groups", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Content> streamGroups(@RequestParam(defaultValue = "0") int page, WebRequest webRequest) {
+        if (contentCacheValidators.checkListNotModified(webRequest, ContentType.GROUP, page + ":ndjson")) {
+            return null;
+        }
+
+        return reactiveContentService.streamByType(ContentType.GROUP, page)
+                .doOnError(e -> logger.error("Streaming groups page {} failed", page, e));
+    }
+
+    @PostMapping(value = "/api/vectors/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<VectorSearchDto>> streamRelevantContent(@RequestBody Map<String, String> request) {
+        String prompt = request.get("prompt");
+
+        VectorSearchFilter filter;
+        try {
+            filter = VectorSearchFilter.of(request.get("type"), request.containsKey("upcomingOnly") ? Boolean.valueOf(request.get("upcomingOnly")) : null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Flux<VectorSearchDto> results = reactiveSearchService.searchRelevantContent(prompt, filter)
+                .map(VectorSearchDto::from)
+                .doOnError(e -> logger.error("Streaming search failed for prompt '{}'", prompt, e));
+
+        return ResponseEntity.ok(results);
+    }
+}
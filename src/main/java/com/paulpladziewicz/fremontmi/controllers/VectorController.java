@@ -1,38 +1,151 @@
 package com.paulpladziewicz.fremontmi.controllers;
 
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentService;
+import com.paulpladziewicz.fremontmi.discovery.SearchCursor;
 import com.paulpladziewicz.fremontmi.discovery.VectorSearchDto;
+import com.paulpladziewicz.fremontmi.discovery.VectorSearchFilter;
+import com.paulpladziewicz.fremontmi.discovery.VectorSearchPageDto;
 import com.paulpladziewicz.fremontmi.discovery.VectorService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/vectors")
 public class VectorController {
 
+    private static final Logger logger = LoggerFactory.getLogger(VectorController.class);
+
     private final VectorService vectorService;
+    private final ContentService contentService;
+    private final Executor taskExecutor;
 
-    public VectorController(VectorService vectorService) {
+    public VectorController(VectorService vectorService, ContentService contentService, @Qualifier("taskExecutor") Executor taskExecutor) {
         this.vectorService = vectorService;
+        this.contentService = contentService;
+        this.taskExecutor = taskExecutor;
     }
 
     @PostMapping("/search")
     public ResponseEntity<List<VectorSearchDto>> searchRelevantContent(@RequestBody Map<String, String> request) {
         String prompt = request.get("prompt");
 
-        List<Content> results = vectorService.searchRelevantContent(prompt);
+        VectorSearchFilter filter;
+        try {
+            filter = VectorSearchFilter.of(request.get("type"), request.containsKey("upcomingOnly") ? Boolean.valueOf(request.get("upcomingOnly")) : null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Content> results = vectorService.searchRelevantContent(prompt, filter);
 
         List<VectorSearchDto> dtos = results.stream()
-                .map(this::convertToDTO)
+                .map(VectorSearchDto::from)
                 .toList();
 
         return ResponseEntity.ok(dtos);
     }
 
+    @PostMapping("/search/page")
+    public ResponseEntity<VectorSearchPageDto> searchRelevantContentPage(@RequestBody Map<String, String> request) {
+        String prompt = request.get("prompt");
+
+        int pageSize;
+        SearchCursor cursor;
+        VectorSearchFilter filter;
+        try {
+            // NumberFormatException is an IllegalArgumentException, so a bad pageSize is a 400 as well
+            pageSize = request.containsKey("pageSize") ? Math.clamp(Integer.parseInt(request.get("pageSize")), 1, 20) : 10;
+            cursor = SearchCursor.decodeOrFirst(request.get("cursor"));
+            filter = VectorSearchFilter.of(request.get("type"), request.containsKey("upcomingOnly") ? Boolean.valueOf(request.get("upcomingOnly")) : null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        VectorService.SearchPage page = vectorService.searchRelevantContentPage(prompt, filter, cursor, pageSize);
+
+        List<VectorSearchDto> dtos = page.content().stream()
+                .map(VectorSearchDto::from)
+                .toList();
+
+        return ResponseEntity.ok(new VectorSearchPageDto(dtos, page.nextCursor()));
+    }
+
+    // Sends fast tag/title matches first, then each semantic result as a separate event, then "done"
+    @GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRelevantContent(@RequestParam String prompt, @RequestParam(required = false) String type, @RequestParam(required = false) Boolean upcomingOnly) {
+        VectorSearchFilter filter;
+        try {
+            filter = VectorSearchFilter.of(type, upcomingOnly);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(30_000L);
+
+        try {
+            taskExecutor.execute(() -> streamResults(emitter, prompt, filter));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Streaming search rejected, the task executor is saturated");
+            emitter.completeWithError(e);
+        }
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void streamResults(SseEmitter emitter, String prompt, VectorSearchFilter filter) {
+        try {
+            Set<String> sentIds = new HashSet<>();
+
+            List<Content> lexicalResults = contentService.findLexicalMatches(prompt, filter, 5);
+            for (Content content : lexicalResults) {
+                sentIds.add(content.getId());
+            }
+            emitter.send(SseEmitter.event().name("lexical").data(lexicalResults.stream().map(VectorSearchDto::from).toList(), MediaType.APPLICATION_JSON));
+
+            // Each result is sent as soon as it is hydrated rather than after the whole batch
+            for (String contentId : vectorService.searchRelevantContentIds(prompt, filter)) {
+                if (sentIds.contains(contentId)) {
+                    continue;
+                }
+
+                Optional<Content> content = vectorService.hydrate(contentId);
+                if (content.isPresent()) {
+                    sentIds.add(contentId);
+                    emitter.send(SseEmitter.event().name("semantic").data(VectorSearchDto.from(content.get()), MediaType.APPLICATION_JSON));
+                }
+            }
+
+            emitter.send(SseEmitter.event().name("done").data(""));
+            emitter.complete();
+        } catch (IOException e) {
+            // Client went away, nothing left to send to
+            emitter.completeWithError(e);
+        } catch (Exception e) {
+            logger.error("Streaming search failed for prompt '{}'", prompt, e);
+            try {
+                emitter.send(SseEmitter.event().name("error").data("Search failed. Please try again."));
+            } catch (IOException ignored) {
+            }
+            emitter.complete();
+        }
+    }
+
     @PostMapping("/{id}/generate")
     public ResponseEntity<List<Double>> generateVector(@PathVariable String id) {
         List<Double> vector = vectorService.generateVector(id);
@@ -44,13 +157,4 @@ public class VectorController {
         vectorService.generateVectorsForAllContent();
         return ResponseEntity.ok("completed");
     }
-
-    private VectorSearchDto convertToDTO(Content content) {
-        return new VectorSearchDto(
-                content.getType(),
-                content.getPathname(),
-                content.getDetail().getTitle(),
-                content.getDetail().getDescription()
-        );
-    }
 }
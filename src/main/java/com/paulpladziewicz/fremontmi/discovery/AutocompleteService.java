@@ -0,0 +1,189 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentStatus;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Search box suggestions from past prompts and public content titles. The index is rebuilt
+ * from scratch every few hours (which also drops removed titles) and new search_history
+ * entries are folded in every minute in between.
+ */
+@Service
+public class AutocompleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private static final int MAX_KEY_LENGTH = 60;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${autocomplete.suggestions:8}")
+    private int suggestionLimit;
+
+    // Prompts typed only once are mostly typos or personal details, so they are not suggested
+    @Value("${autocomplete.min-prompt-count:2}")
+    private int minPromptCount;
+
+    @Value("${autocomplete.title-weight:5}")
+    private int titleWeight;
+
+    private volatile CompletionTrie trie;
+    private final Map<String, Integer> promptCounts = new HashMap<>();
+    private LocalDateTime watermark;
+
+    // Guards promptCounts and watermark
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    public AutocompleteService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<String> complete(String query) {
+        CompletionTrie current = trie;
+        String prefix = normalize(query);
+
+        if (current == null || prefix.isEmpty()) {
+            return List.of();
+        }
+
+        return current.complete(prefix, suggestionLimit).stream()
+                .map(CompletionTrie.Suggestion::display)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${autocomplete.rebuild-interval:PT6H}", initialDelayString = "PT30S")
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            rebuildIndex();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        CompletionTrie rebuilt = new CompletionTrie(suggestionLimit);
+        Map<String, Integer> counts = new HashMap<>();
+        LocalDateTime latest = null;
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("prompt").ne(null)),
+                Aggregation.group("prompt").count().as("count").max("timestamp").as("latest")
+        );
+
+        for (Document document : mongoTemplate.aggregate(aggregation, SearchHistory.class, Document.class)) {
+            String key = normalize(document.getString("_id"));
+            if (isSuggestible(key)) {
+                counts.merge(key, document.getInteger("count"), Integer::sum);
+            }
+
+            Date documentLatest = document.getDate("latest");
+            if (documentLatest != null) {
+                LocalDateTime latestTimestamp = LocalDateTime.ofInstant(documentLatest.toInstant(), ZoneId.systemDefault());
+                if (latest == null || latestTimestamp.isAfter(latest)) {
+                    latest = latestTimestamp;
+                }
+            }
+        }
+
+        counts.forEach((key, count) -> {
+            if (count >= minPromptCount) {
+                rebuilt.add(key, null, count);
+            }
+        });
+
+        Query titleQuery = new Query(Criteria.where("visibility").is(ContentVisibility.PUBLIC).and("status").is(ContentStatus.ACTIVE));
+        titleQuery.fields().include("detail.title", "type");
+        int titles = 0;
+
+        for (Content content : mongoTemplate.find(titleQuery, Content.class)) {
+            String title = content.getDetail() != null ? content.getDetail().getTitle() : null;
+            String key = normalize(title);
+            if (isSuggestible(key)) {
+                rebuilt.add(key, title.trim(), titleWeight);
+                titles++;
+            }
+        }
+
+        promptCounts.clear();
+        promptCounts.putAll(counts);
+        watermark = latest;
+        trie = rebuilt;
+
+        logger.info("Rebuilt autocomplete index from {} prompts and {} titles in {} ms", counts.size(), titles, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${autocomplete.refresh-interval:PT1M}", initialDelayString = "PT1M")
+    public void applyNewSearches() {
+        updateLock.lock();
+        try {
+            applyNewSearchesToIndex();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void applyNewSearchesToIndex() {
+        CompletionTrie current = trie;
+        if (current == null) {
+            return;
+        }
+
+        Query query = new Query();
+        if (watermark != null) {
+            query.addCriteria(Criteria.where("timestamp").gt(watermark));
+        }
+        query.fields().include("prompt", "timestamp");
+        query.with(Sort.by(Sort.Direction.ASC, "timestamp")).limit(1000);
+
+        for (SearchHistory searchHistory : mongoTemplate.find(query, SearchHistory.class)) {
+            watermark = searchHistory.getTimestamp();
+
+            String key = normalize(searchHistory.getPrompt());
+            if (!isSuggestible(key)) {
+                continue;
+            }
+
+            int count = promptCounts.merge(key, 1, Integer::sum);
+            if (count == minPromptCount) {
+                current.add(key, null, count);
+            } else if (count > minPromptCount) {
+                current.add(key, null, 1);
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        return text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}&' -]", " ")
+                .replaceAll("\\s+", " ")
+                .strip();
+    }
+
+    private boolean isSuggestible(String key) {
+        return key.length() >= 3 && key.length() <= MAX_KEY_LENGTH;
+    }
+}
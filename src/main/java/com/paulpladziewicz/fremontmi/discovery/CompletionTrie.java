@@ -0,0 +1,85 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix tree where every node keeps its own top suggestions, so a lookup is a walk down
+ * the prefix and nothing more. Weights only ever grow, which is what lets an insert fix up
+ * the cached lists along its path without rescanning subtrees.
+ */
+final class CompletionTrie {
+
+    private static final Comparator<Suggestion> BY_WEIGHT = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::key);
+
+    private final int suggestionsPerNode;
+    private final Node root = new Node();
+
+    CompletionTrie(int suggestionsPerNode) {
+        this.suggestionsPerNode = suggestionsPerNode;
+    }
+
+    // display may be null to keep whatever text the key was first added with
+    synchronized void add(String key, String display, long weight) {
+        List<Node> path = new ArrayList<>(key.length());
+        Node node = root;
+
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            path.add(node);
+        }
+
+        node.weight += weight;
+        if (display != null || node.display == null) {
+            node.display = display != null ? display : key;
+        }
+
+        Suggestion suggestion = new Suggestion(key, node.display, node.weight);
+        for (Node prefixNode : path) {
+            prefixNode.top = merge(prefixNode.top, suggestion);
+        }
+    }
+
+    List<Suggestion> complete(String prefix, int limit) {
+        Node node = root;
+
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+
+        if (node == null) {
+            return List.of();
+        }
+
+        List<Suggestion> top = node.top;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    private List<Suggestion> merge(List<Suggestion> current, Suggestion suggestion) {
+        List<Suggestion> merged = new ArrayList<>(current.size() + 1);
+
+        for (Suggestion existing : current) {
+            if (!existing.key().equals(suggestion.key())) {
+                merged.add(existing);
+            }
+        }
+        merged.add(suggestion);
+        merged.sort(BY_WEIGHT);
+
+        return List.copyOf(merged.size() > suggestionsPerNode ? merged.subList(0, suggestionsPerNode) : merged);
+    }
+
+    record Suggestion(String key, String display, long weight) {
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile List<Suggestion> top = List.of();
+        private long weight;
+        private String display;
+    }
+}
@@ -0,0 +1,72 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings content_vectors written before two-stage search and filtered search up to date, since
+ * both indexes skip documents without a shortVector or filter fields and search would otherwise
+ * come back empty until the admin backfills were run by hand. Runs after startup on every
+ * instance; once everything is migrated both checks find nothing and this is a no-op.
+ */
+@Component
+public class ContentVectorMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentVectorMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final VectorService vectorService;
+
+    @Value("${vector.search.short-dimensions:256}")
+    private int shortDimensions;
+
+    public ContentVectorMigration(MongoTemplate mongoTemplate, VectorService vectorService) {
+        this.mongoTemplate = mongoTemplate;
+        this.vectorService = vectorService;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection("content_vectors");
+        long start = System.currentTimeMillis();
+
+        // eq(null) also matches documents where the field is missing
+        Bson missingFilterFields = Filters.or(
+                Filters.eq("model", null),
+                Filters.eq("type", null),
+                Filters.eq("status", null),
+                Filters.eq("visibility", null));
+        if (hasContent(collection.distinct("_id", missingFilterFields, Object.class).into(new ArrayList<>()))) {
+            int updated = vectorService.backfillFilterFields();
+            logger.info("Backfilled filter fields on {} content vectors in {} ms", updated, System.currentTimeMillis() - start);
+        }
+
+        // Also catches vectors truncated to a previous vector.search.short-dimensions
+        Bson missingShortVector = Filters.and(
+                Filters.type("vector", "array"),
+                Filters.or(Filters.eq("shortVector", null), Filters.not(Filters.size("shortVector", shortDimensions))));
+        if (collection.find(missingShortVector).limit(1).first() != null) {
+            int updated = vectorService.backfillShortVectors();
+            logger.info("Backfilled short vectors on {} content vectors in {} ms", updated, System.currentTimeMillis() - start);
+        }
+    }
+
+    // Vectors whose content is gone can't be backfilled, so they must not trigger the backfill on every boot
+    private boolean hasContent(List<Object> contentIds) {
+        return !contentIds.isEmpty() && mongoTemplate.getCollection("content").countDocuments(Filters.in("_id", contentIds)) > 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Turns text into an embedding. Vectors are only comparable with vectors from the same
+ * model, so every stored ContentVector records the model that produced it and searches
+ * are filtered to the active one.
+ */
+public interface EmbeddingProvider {
+
+    String getProvider();
+
+    String getModel();
+
+    List<Double> embed(String text);
+
+    // Local providers answer inline; remote ones override this so callers don't hold a thread on the network
+    default CompletableFuture<List<Double>> embedAsync(String text) {
+        return CompletableFuture.completedFuture(embed(text));
+    }
+}
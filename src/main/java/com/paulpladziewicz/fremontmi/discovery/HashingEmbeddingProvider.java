@@ -0,0 +1,113 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process embeddings using the hashing trick: words and adjacent word pairs are hashed
+ * into a fixed number of signed buckets with sublinear term frequency, then L2 normalized.
+ * Much weaker than a trained model, but needs no network and runs in microseconds, which
+ * is what dev and offline environments want.
+ */
+@Component
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "hashing")
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    // Labels added by VectorService.buildInputText appear in every document and carry no signal
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "description", "for", "from", "in", "is", "it",
+            "of", "on", "or", "tags", "that", "the", "this", "title", "to", "type", "with"
+    );
+
+    private final int dimensions;
+
+    public HashingEmbeddingProvider(@Value("${embedding.hashing.dimensions:3072}") int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public String getProvider() {
+        return "hashing";
+    }
+
+    @Override
+    public String getModel() {
+        return "hashing-v1-" + dimensions;
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        List<String> tokens = tokenize(text);
+        Map<String, Integer> termFrequencies = new HashMap<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            termFrequencies.merge(tokens.get(i), 1, Integer::sum);
+            if (i + 1 < tokens.size()) {
+                termFrequencies.merge(tokens.get(i) + " " + tokens.get(i + 1), 1, Integer::sum);
+            }
+        }
+
+        double[] vector = new double[dimensions];
+        termFrequencies.forEach((term, frequency) -> {
+            int hash = murmurMix(term.hashCode());
+            int bucket = Math.floorMod(hash, dimensions);
+            // A second, independent bit picks the sign so collisions cancel out on average
+            double sign = (murmurMix(hash) & 1) == 0 ? 1 : -1;
+            vector[bucket] += sign * (1 + Math.log(frequency));
+        });
+
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+
+        List<Double> embedding = new ArrayList<>(dimensions);
+        for (double value : vector) {
+            embedding.add(norm == 0 ? 0 : value / norm);
+        }
+
+        return embedding;
+    }
+
+    private List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(stem(token));
+            }
+        }
+
+        return tokens;
+    }
+
+    // Crude plural folding so "parks" and "park" share a bucket
+    private String stem(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    // String.hashCode has poor low bits for short strings, spread them before taking the modulus
+    private int murmurMix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,116 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "openai", matchIfMissing = true)
+public class OpenAiEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String MODEL = "text-embedding-3-large";
+
+    private static final URI EMBEDDINGS_URI = URI.create("https://api.openai.com/v1/embeddings");
+
+    @Value("${openai.api.key}")
+    private String apiKey;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public OpenAiEmbeddingProvider(RestTemplate restTemplate, ObjectMapper objectMapper) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getProvider() {
+        return "openai";
+    }
+
+    @Override
+    public String getModel() {
+        return MODEL;
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        Map<String, Object> requestBody = Map.of(
+                "model", MODEL,
+                "input", text
+        );
+
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        ResponseEntity<Map> response;
+
+        try {
+            response = restTemplate.postForEntity(EMBEDDINGS_URI, request, Map.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch vector from OpenAI: " + e.getMessage(), e);
+        }
+
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            throw new RuntimeException("Invalid response from OpenAI: " + response.getStatusCode());
+        }
+
+        return (List<Double>) ((Map<String, Object>) ((List<?>) response.getBody().get("data")).get(0)).get("embedding");
+    }
+
+    // The JDK client completes on its own selector thread, so nothing waits on OpenAI while the request is in flight
+    @Override
+    public CompletableFuture<List<Double>> embedAsync(String text) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(EMBEDDINGS_URI)
+                    .timeout(Duration.ofSeconds(30))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("model", MODEL, "input", text))))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(this::parseEmbedding);
+    }
+
+    private List<Double> parseEmbedding(HttpResponse<String> response) {
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            throw new RuntimeException("Invalid response from OpenAI: " + response.statusCode());
+        }
+
+        JsonNode embedding;
+        try {
+            embedding = objectMapper.readTree(response.body()).path("data").path(0).path("embedding");
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to parse vector from OpenAI: " + e.getMessage(), e);
+        }
+
+        List<Double> vector = new ArrayList<>(embedding.size());
+        embedding.forEach(value -> vector.add(value.asDouble()));
+        return vector;
+    }
+}
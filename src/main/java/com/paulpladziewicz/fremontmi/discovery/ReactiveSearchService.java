@@ -0,0 +1,82 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentStatus;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Semantic search without a blocked thread at any step: the embedding call, the $vectorSearch
+ * aggregation, the history insert and hydration all complete asynchronously. Pipeline building,
+ * scoring and the result cache are shared with VectorService so both paths rank identically.
+ */
+@Service
+public class ReactiveSearchService {
+
+    private final VectorService vectorService;
+    private final EmbeddingProvider embeddingProvider;
+    private final SemanticResultCache semanticResultCache;
+    private final MongoClient reactiveMongoClient;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveSearchService(VectorService vectorService, EmbeddingProvider embeddingProvider, SemanticResultCache semanticResultCache, MongoClient reactiveMongoClient, ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.vectorService = vectorService;
+        this.embeddingProvider = embeddingProvider;
+        this.semanticResultCache = semanticResultCache;
+        this.reactiveMongoClient = reactiveMongoClient;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    public Flux<Content> searchRelevantContent(String prompt, VectorSearchFilter filter) {
+        return Mono.fromFuture(() -> embeddingProvider.embedAsync(prompt))
+                .flatMap(queryVector -> findResults(queryVector, filter, VectorService.DEFAULT_LIMIT))
+                .flatMapMany(results -> reactiveMongoTemplate.insert(vectorService.newSearchHistory(prompt, results))
+                        .thenMany(hydrate(vectorService.aboveThreshold(results))));
+    }
+
+    private Mono<List<ResultWithScore>> findResults(List<Double> queryVector, VectorSearchFilter filter, int limit) {
+        String cacheKey = VectorService.resultCacheKey(filter, limit);
+
+        Optional<List<ResultWithScore>> cached = semanticResultCache.find(queryVector, cacheKey);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+
+        long generation = semanticResultCache.currentGeneration();
+
+        return Flux.from(reactiveMongoClient.getDatabase(VectorService.VECTOR_DATABASE)
+                        .getCollection("content_vectors")
+                        .aggregate(vectorService.vectorSearchPipeline(queryVector, filter, limit)))
+                .collectList()
+                .map(documents -> vectorService.toResults(queryVector, documents, limit))
+                .doOnNext(results -> semanticResultCache.put(queryVector, cacheKey, results, generation));
+    }
+
+    // Same re-check as VectorService.hydrate, done in the query, with the ranking order restored afterwards
+    private Flux<Content> hydrate(List<String> contentIds) {
+        if (contentIds.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Query query = Query.query(Criteria.where("id").in(contentIds)
+                .and("visibility").is(ContentVisibility.PUBLIC)
+                .and("status").is(ContentStatus.ACTIVE));
+
+        return reactiveMongoTemplate.find(query, Content.class)
+                .collectMap(Content::getId)
+                .flatMapIterable(contentMap -> contentIds.stream()
+                        .map(contentMap::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+}
@@ -0,0 +1,160 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentStatus;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.content.ContentVector;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Precomputes "you might also like" recommendations into Content.relatedContentIds from the
+ * nearest neighbours in content_vectors. Neighbours are only drawn from the same content type and
+ * from public, active content. After the first full pass, only items whose neighbourhood may have
+ * changed since the previous run are recomputed and written.
+ */
+@Service
+public class RelatedContentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedContentService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${related.content.count:4}")
+    private int relatedCount;
+
+    private LocalDateTime lastRunStartedAt;
+
+    public RelatedContentService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${related.content.refresh-interval:PT1H}", initialDelayString = "PT2M")
+    public void refreshRelatedContent() {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+
+        Map<String, Content> eligibleContent = findEligibleContent();
+        Map<String, ContentVector> vectors = findVectors(eligibleContent.keySet());
+
+        Set<String> changedIds = vectors.values().stream()
+                .filter(vector -> lastRunStartedAt == null || vector.getUpdatedAt() == null || vector.getUpdatedAt().isAfter(lastRunStartedAt))
+                .map(ContentVector::getContentId)
+                .collect(Collectors.toSet());
+
+        Map<ContentType, List<String>> idsByType = vectors.keySet().stream()
+                .collect(Collectors.groupingBy(id -> eligibleContent.get(id).getType()));
+
+        Map<String, float[]> normalizedVectors = new HashMap<>();
+        vectors.forEach((id, vector) -> normalizedVectors.put(id, VectorMath.normalize(vectorOf(vector))));
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Content.class);
+        int updates = 0;
+        int recomputed = 0;
+
+        for (List<String> block : idsByType.values()) {
+            Set<String> blockIds = new HashSet<>(block);
+            List<String> changedInBlock = block.stream().filter(changedIds::contains).toList();
+
+            for (String id : block) {
+                List<String> currentRelated = Optional.ofNullable(eligibleContent.get(id).getRelatedContentIds()).orElse(List.of());
+
+                if (!isAffected(id, currentRelated, blockIds, changedInBlock, normalizedVectors)) {
+                    continue;
+                }
+
+                recomputed++;
+                List<String> related = nearestNeighbours(id, block, normalizedVectors);
+
+                if (!related.equals(currentRelated)) {
+                    bulkOperations.updateOne(Query.query(Criteria.where("_id").is(id)), Update.update("relatedContentIds", related));
+                    updates++;
+                }
+            }
+        }
+
+        if (updates > 0) {
+            bulkOperations.execute();
+        }
+
+        lastRunStartedAt = runStartedAt;
+        logger.info("Related content refreshed: {} eligible, {} changed vectors, {} recomputed, {} updated in {} ms",
+                vectors.size(), changedIds.size(), recomputed, updates, System.currentTimeMillis() - start);
+    }
+
+    // An item needs recomputing when its own vector changed, a current neighbour is gone or changed,
+    // it has room for more neighbours, or a changed item is now closer than its furthest neighbour.
+    private boolean isAffected(String id, List<String> currentRelated, Set<String> blockIds, List<String> changedInBlock, Map<String, float[]> vectors) {
+        if (changedInBlock.contains(id)) {
+            return true;
+        }
+
+        if (currentRelated.size() < Math.min(relatedCount, blockIds.size() - 1)) {
+            return true;
+        }
+
+        float[] vector = vectors.get(id);
+        double furthestNeighbour = Double.MAX_VALUE;
+
+        for (String relatedId : currentRelated) {
+            if (!blockIds.contains(relatedId) || changedInBlock.contains(relatedId)) {
+                return true;
+            }
+            furthestNeighbour = Math.min(furthestNeighbour, VectorMath.cosine(vector, vectors.get(relatedId)));
+        }
+
+        for (String changedId : changedInBlock) {
+            if (VectorMath.cosine(vector, vectors.get(changedId)) > furthestNeighbour) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private List<String> nearestNeighbours(String id, List<String> block, Map<String, float[]> vectors) {
+        float[] vector = vectors.get(id);
+
+        return block.stream()
+                .filter(candidate -> !candidate.equals(id))
+                .sorted(Comparator.comparingDouble((String candidate) -> VectorMath.cosine(vector, vectors.get(candidate))).reversed())
+                .limit(relatedCount)
+                .toList();
+    }
+
+    private Map<String, Content> findEligibleContent() {
+        Query query = Query.query(Criteria.where("visibility").is(ContentVisibility.PUBLIC).and("status").is(ContentStatus.ACTIVE));
+        query.fields().include("_id", "type", "relatedContentIds");
+
+        return mongoTemplate.find(query, Content.class).stream()
+                .collect(Collectors.toMap(Content::getId, content -> content));
+    }
+
+    private Map<String, ContentVector> findVectors(Set<String> contentIds) {
+        Query query = Query.query(Criteria.where("_id").in(contentIds));
+        query.fields().include("_id", "vector", "shortVector", "updatedAt");
+
+        return mongoTemplate.find(query, ContentVector.class).stream()
+                .filter(vector -> vectorOf(vector) != null)
+                .collect(Collectors.toMap(ContentVector::getContentId, vector -> vector));
+    }
+
+    // The short vectors are plenty for recommendations and much cheaper to compare
+    private List<Double> vectorOf(ContentVector contentVector) {
+        return contentVector.getShortVector() != null ? contentVector.getShortVector() : contentVector.getVector();
+    }
+}
@@ -0,0 +1,237 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.mongodb.client.result.UpdateResult;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Maintains hourly and daily rollups of search_history. Each run aggregates only the documents
+ * written since the stored watermark, so the cost tracks new searches rather than the size of
+ * the collection.
+ *
+ * One instance at a time holds a lease on the rollup state, so buckets have a single writer, and
+ * the watermark only moves once every bucket of the window is saved. A failed run keeps its window
+ * pending and the next run retries it; buckets already saved by the failed run are skipped.
+ */
+@Service
+public class SearchAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchAnalyticsService.class);
+
+    // Prompts kept per bucket, the long tail beyond this is only reflected in the totals
+    private static final int MAX_PROMPTS_PER_BUCKET = 500;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final MongoTemplate mongoTemplate;
+    private final SearchRollupRepository searchRollupRepository;
+
+    @Value("${search.analytics.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${vector.search.relevance-threshold:0.65}")
+    private double relevanceThreshold;
+
+    public SearchAnalyticsService(MongoTemplate mongoTemplate, SearchRollupRepository searchRollupRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.searchRollupRepository = searchRollupRepository;
+    }
+
+    public List<SearchRollup> getRollups(SearchRollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return searchRollupRepository.findByGranularityAndBucketStartBetweenOrderByBucketStartAsc(granularity, from, to);
+    }
+
+    @Scheduled(fixedDelayString = "${search.analytics.refresh-interval:PT10M}", initialDelayString = "PT1M")
+    public void rollUpNewSearches() {
+        // Leave a minute for in-flight searches so none are written behind the watermark
+        SearchRollupState state = claimWindow(LocalDateTime.now().minusMinutes(1));
+
+        if (state == null) {
+            return;
+        }
+
+        LocalDateTime watermark = state.getWatermark();
+        LocalDateTime upperBound = state.getPendingUpperBound();
+
+        try {
+            int searches = rollUp(watermark, upperBound);
+            if (completeWindow(upperBound)) {
+                logger.info("Rolled up {} searches between {} and {}", searches, watermark, upperBound);
+            } else {
+                logger.warn("Lost the search rollup lease while rolling up {} to {}, the window may be counted again", watermark, upperBound);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to roll up searches between {} and {}, the window will be retried", watermark, upperBound, e);
+            releaseLease();
+        }
+    }
+
+    private int rollUp(LocalDateTime watermark, LocalDateTime upperBound) {
+        Document hour = new Document("$dateTrunc", new Document("date", "$timestamp")
+                .append("unit", "hour")
+                .append("timezone", ZoneId.systemDefault().getId()));
+        Document normalizedPrompt = new Document("$toLower", new Document("$trim", new Document("input", new Document("$ifNull", List.of("$prompt", "")))));
+        Document topScore = new Document("$ifNull", List.of(new Document("$max", "$allResultsWithScores.score"), 0.0));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("timestamp", new Document("$gt", toDate(watermark)).append("$lte", toDate(upperBound)))),
+                new Document("$project", new Document("hour", hour).append("prompt", normalizedPrompt).append("topScore", topScore)),
+                new Document("$group", new Document("_id", new Document("hour", "$hour").append("prompt", "$prompt"))
+                        .append("topScores", new Document("$push", "$topScore")))
+        );
+
+        Map<String, SearchRollup> rollups = new HashMap<>();
+        int searches = 0;
+
+        for (Document group : mongoTemplate.getCollection("search_history").aggregate(pipeline)) {
+            Document key = group.get("_id", Document.class);
+            LocalDateTime bucket = LocalDateTime.ofInstant(key.getDate("hour").toInstant(), ZoneId.systemDefault());
+            String prompt = key.getString("prompt");
+            List<Double> topScores = group.getList("topScores", Number.class).stream().map(Number::doubleValue).toList();
+
+            for (SearchRollupGranularity granularity : SearchRollupGranularity.values()) {
+                SearchRollup rollup = rollups.computeIfAbsent(rollupId(granularity, bucket), id -> loadRollup(id, granularity, bucket));
+                // Saved by an earlier attempt at this same window
+                if (rollup.getRolledUpThrough() != null && !rollup.getRolledUpThrough().isBefore(upperBound)) {
+                    continue;
+                }
+                merge(rollup, prompt, topScores);
+            }
+
+            searches += topScores.size();
+        }
+
+        List<SearchRollup> changed = rollups.values().stream()
+                .filter(rollup -> rollup.getRolledUpThrough() == null || rollup.getRolledUpThrough().isBefore(upperBound))
+                .toList();
+        changed.forEach(rollup -> {
+            trimPrompts(rollup);
+            rollup.setRolledUpThrough(upperBound);
+        });
+        searchRollupRepository.saveAll(changed);
+
+        return searches;
+    }
+
+    // Takes the lease and fixes the window's upper bound, reusing the pending one if the last run failed
+    private SearchRollupState claimWindow(LocalDateTime upperBound) {
+        if (mongoTemplate.findById(SearchRollupState.ID, SearchRollupState.class) == null) {
+            SearchRollupState initial = new SearchRollupState();
+            initial.setWatermark(LocalDateTime.of(2000, 1, 1, 0, 0));
+            try {
+                mongoTemplate.insert(initial);
+            } catch (DuplicateKeyException e) {
+                // Another instance created it first
+            }
+        }
+
+        Instant now = Instant.now();
+        SearchRollupState state = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(SearchRollupState.ID)
+                        .orOperator(Criteria.where("leaseExpiresAt").is(null), Criteria.where("leaseExpiresAt").lt(now))),
+                new Update().set("leaseOwner", instanceId).set("leaseExpiresAt", now.plus(lease)),
+                FindAndModifyOptions.options().returnNew(true),
+                SearchRollupState.class);
+
+        if (state == null) {
+            return null;
+        }
+
+        if (state.getPendingUpperBound() == null) {
+            if (!state.getWatermark().isBefore(upperBound)) {
+                releaseLease();
+                return null;
+            }
+            state.setPendingUpperBound(upperBound);
+            mongoTemplate.updateFirst(leaseQuery(), Update.update("pendingUpperBound", upperBound), SearchRollupState.class);
+        }
+
+        return state;
+    }
+
+    private boolean completeWindow(LocalDateTime upperBound) {
+        UpdateResult result = mongoTemplate.updateFirst(leaseQuery(),
+                new Update().set("watermark", upperBound).unset("pendingUpperBound").unset("leaseOwner").unset("leaseExpiresAt"),
+                SearchRollupState.class);
+        return result.getModifiedCount() == 1;
+    }
+
+    private void releaseLease() {
+        mongoTemplate.updateFirst(leaseQuery(), new Update().unset("leaseOwner").unset("leaseExpiresAt"), SearchRollupState.class);
+    }
+
+    private Query leaseQuery() {
+        return Query.query(Criteria.where("_id").is(SearchRollupState.ID).and("leaseOwner").is(instanceId));
+    }
+
+    private SearchRollup loadRollup(String id, SearchRollupGranularity granularity, LocalDateTime dateTime) {
+        return searchRollupRepository.findById(id).orElseGet(() -> {
+            SearchRollup rollup = new SearchRollup();
+            rollup.setId(id);
+            rollup.setGranularity(granularity);
+            rollup.setBucketStart(granularity.truncate(dateTime));
+            return rollup;
+        });
+    }
+
+    private void merge(SearchRollup rollup, String prompt, List<Double> topScores) {
+        SearchRollup.PromptStats promptStats = rollup.getPromptStats().stream()
+                .filter(stats -> stats.getPrompt().equals(prompt))
+                .findFirst()
+                .orElseGet(() -> {
+                    SearchRollup.PromptStats stats = new SearchRollup.PromptStats();
+                    stats.setPrompt(prompt);
+                    rollup.getPromptStats().add(stats);
+                    return stats;
+                });
+
+        for (double topScore : topScores) {
+            int bucket = SearchRollup.scoreBucket(topScore);
+            boolean zeroResults = topScore <= relevanceThreshold;
+
+            rollup.setQueryCount(rollup.getQueryCount() + 1);
+            rollup.getScoreHistogram()[bucket]++;
+            promptStats.setCount(promptStats.getCount() + 1);
+            promptStats.getScoreHistogram()[bucket]++;
+
+            if (zeroResults) {
+                rollup.setZeroResultCount(rollup.getZeroResultCount() + 1);
+                promptStats.setZeroResultCount(promptStats.getZeroResultCount() + 1);
+            }
+        }
+    }
+
+    private void trimPrompts(SearchRollup rollup) {
+        if (rollup.getPromptStats().size() > MAX_PROMPTS_PER_BUCKET) {
+            rollup.setPromptStats(new ArrayList<>(rollup.getPromptStats().stream()
+                    .sorted(Comparator.comparingInt(SearchRollup.PromptStats::getCount).reversed())
+                    .limit(MAX_PROMPTS_PER_BUCKET)
+                    .toList()));
+        }
+    }
+
+    private String rollupId(SearchRollupGranularity granularity, LocalDateTime dateTime) {
+        return granularity + ":" + granularity.truncate(dateTime);
+    }
+
+    private Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
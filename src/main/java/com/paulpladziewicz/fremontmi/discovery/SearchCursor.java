@@ -0,0 +1,44 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque "load more" position: the ranking token plus the offset of the next page.
+ */
+public record SearchCursor(String token, int offset) {
+
+    public static SearchCursor first() {
+        return new SearchCursor(UUID.randomUUID().toString(), 0);
+    }
+
+    // No cursor means the first page of a new search
+    public static SearchCursor decodeOrFirst(String cursor) {
+        return cursor == null || cursor.isBlank() ? first() : decode(cursor);
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(':');
+            int offset = Integer.parseInt(decoded.substring(separator + 1));
+
+            if (separator <= 0 || offset < 0) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+
+            return new SearchCursor(decoded.substring(0, separator), offset);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+
+    public SearchCursor next(int pageSize) {
+        return new SearchCursor(token, offset + pageSize);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((token + ":" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+}
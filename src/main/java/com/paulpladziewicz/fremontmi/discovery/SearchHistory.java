@@ -2,6 +2,7 @@ package com.paulpladziewicz.fremontmi.discovery;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -14,5 +15,6 @@ public class SearchHistory {
     private String id;
     private String prompt;
     private List<ResultWithScore> allResultsWithScores;
+    @Indexed
     private LocalDateTime timestamp;
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds the ranked result ids of a semantic search so later pages are served without
+ * embedding or searching again. Rankings are per instance; a cursor that lands on
+ * another instance, or outlives the TTL, simply gets its ranking recomputed.
+ */
+@Component
+public class SearchRankingCache {
+
+    private final int maxEntries;
+    private final Duration ttl;
+
+    private final Map<String, Ranking> rankings;
+
+    public SearchRankingCache(@Value("${vector.search.ranking.max-entries:1000}") int maxEntries,
+                              @Value("${vector.search.ranking.ttl:PT10M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.rankings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ranking> eldest) {
+                return size() > SearchRankingCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized Optional<List<String>> find(String token, String prompt, String filterKey) {
+        Ranking ranking = rankings.get(token);
+
+        if (ranking == null) {
+            return Optional.empty();
+        }
+
+        if (ranking.createdAt.plus(ttl).isBefore(Instant.now())) {
+            rankings.remove(token);
+            return Optional.empty();
+        }
+
+        // A cursor replayed with a different query must not page through someone else's ranking
+        if (!ranking.prompt.equals(prompt) || !ranking.filterKey.equals(filterKey)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ranking.contentIds);
+    }
+
+    public synchronized void put(String token, String prompt, String filterKey, List<String> contentIds) {
+        rankings.put(token, new Ranking(prompt, filterKey, List.copyOf(contentIds), Instant.now()));
+    }
+
+    private record Ranking(String prompt, String filterKey, List<String> contentIds, Instant createdAt) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Data
+@Document(collection = "search_rollups")
+@CompoundIndex(name = "granularity_bucket_idx", def = "{'granularity': 1, 'bucketStart': 1}")
+public class SearchRollup {
+
+    // Upper bounds of the top-score histogram buckets, the last bucket is everything above 0.8
+    public static final double[] SCORE_BUCKETS = {0.5, 0.6, 0.65, 0.7, 0.8};
+
+    @Id
+    private String id;
+
+    private SearchRollupGranularity granularity;
+
+    private LocalDateTime bucketStart;
+
+    private int queryCount;
+
+    private int zeroResultCount;
+
+    private int[] scoreHistogram = new int[SCORE_BUCKETS.length + 1];
+
+    private List<PromptStats> promptStats = new ArrayList<>();
+
+    // Upper bound of the last window merged in, so a retried window is not counted twice
+    private LocalDateTime rolledUpThrough;
+
+    public double getZeroResultRate() {
+        return queryCount == 0 ? 0 : (double) zeroResultCount / queryCount;
+    }
+
+    public List<PromptStats> getTopPrompts() {
+        return promptStats.stream()
+                .sorted(Comparator.comparingInt(PromptStats::getCount).reversed())
+                .limit(10)
+                .toList();
+    }
+
+    public static int scoreBucket(double score) {
+        for (int i = 0; i < SCORE_BUCKETS.length; i++) {
+            if (score <= SCORE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return SCORE_BUCKETS.length;
+    }
+
+    @Data
+    public static class PromptStats {
+        private String prompt;
+        private int count;
+        private int zeroResultCount;
+        private int[] scoreHistogram = new int[SCORE_BUCKETS.length + 1];
+    }
+}
@@ -0,0 +1,13 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum SearchRollupGranularity {
+    HOURLY,
+    DAILY;
+
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+        return this == HOURLY ? dateTime.truncatedTo(ChronoUnit.HOURS) : dateTime.truncatedTo(ChronoUnit.DAYS);
+    }
+}
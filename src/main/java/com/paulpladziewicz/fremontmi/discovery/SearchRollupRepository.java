@@ -0,0 +1,11 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SearchRollupRepository extends MongoRepository<SearchRollup, String> {
+
+    List<SearchRollup> findByGranularityAndBucketStartBetweenOrderByBucketStartAsc(SearchRollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+}
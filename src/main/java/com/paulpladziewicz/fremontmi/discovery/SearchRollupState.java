@@ -0,0 +1,29 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "search_rollup_state")
+public class SearchRollupState {
+
+    public static final String ID = "search_history";
+
+    @Id
+    private String id = ID;
+
+    // Every search_history document at or before this timestamp has been rolled up
+    private LocalDateTime watermark;
+
+    // End of the window being rolled up; kept after a failed run so the retry covers exactly the same window
+    private LocalDateTime pendingUpperBound;
+
+    // Instance currently rolling up, and when its claim lapses if it dies mid-run
+    private String leaseOwner;
+
+    private Instant leaseExpiresAt;
+}
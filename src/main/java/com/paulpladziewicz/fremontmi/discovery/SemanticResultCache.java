@@ -0,0 +1,130 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reuses vector search results for queries with the same filter whose embeddings are
+ * nearly identical ("dog parks" vs "parks for dogs"). Entries are dropped whenever
+ * content_vectors changes on this instance and expire after a TTL so other instances'
+ * writes are picked up eventually.
+ */
+@Component
+public class SemanticResultCache {
+
+    private final double maxDistance;
+    private final int maxEntries;
+    private final Duration ttl;
+
+    private final ConcurrentLinkedDeque<Entry> entries = new ConcurrentLinkedDeque<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong totalHitAgeMillis = new AtomicLong();
+    private final AtomicLong maxHitAgeMillis = new AtomicLong();
+
+    public SemanticResultCache(@Value("${vector.search.cache.max-distance:0.03}") double maxDistance,
+                               @Value("${vector.search.cache.max-entries:500}") int maxEntries,
+                               @Value("${vector.search.cache.ttl:PT30M}") Duration ttl) {
+        this.maxDistance = maxDistance;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public Optional<List<ResultWithScore>> find(List<Double> queryVector, String filterKey) {
+        float[] normalized = VectorMath.normalize(queryVector);
+        Instant now = Instant.now();
+        long currentGeneration = generation.get();
+
+        Entry best = null;
+        double bestDistance = maxDistance;
+
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+
+            if (entry.generation != currentGeneration || entry.createdAt.plus(ttl).isBefore(now)) {
+                entries.remove(entry);
+                continue;
+            }
+
+            if (!entry.filterKey.equals(filterKey)) {
+                continue;
+            }
+
+            double distance = 1 - VectorMath.cosine(normalized, entry.vector);
+            if (distance <= bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        long ageMillis = Duration.between(best.createdAt, now).toMillis();
+        hits.incrementAndGet();
+        totalHitAgeMillis.addAndGet(ageMillis);
+        maxHitAgeMillis.accumulateAndGet(ageMillis, Math::max);
+
+        return Optional.of(best.results);
+    }
+
+    public void put(List<Double> queryVector, String filterKey, List<ResultWithScore> results, long searchGeneration) {
+        // A write to content_vectors happened while the search was running, so the results may already be stale
+        if (searchGeneration != generation.get()) {
+            return;
+        }
+
+        entries.addFirst(new Entry(VectorMath.normalize(queryVector), filterKey, List.copyOf(results), searchGeneration, Instant.now()));
+
+        while (entries.size() > maxEntries) {
+            entries.pollLast();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        return new Stats(
+                hitCount,
+                missCount,
+                lookups == 0 ? 0 : (double) hitCount / lookups,
+                entries.size(),
+                invalidations.get(),
+                hitCount == 0 ? 0 : totalHitAgeMillis.get() / hitCount,
+                maxHitAgeMillis.get()
+        );
+    }
+
+    public record Stats(long hits, long misses, double hitRate, int entries, long invalidations,
+                        long averageHitAgeMillis, long maxHitAgeMillis) {
+    }
+
+    private record Entry(float[] vector, String filterKey, List<ResultWithScore> results, long generation, Instant createdAt) {
+    }
+}
@@ -0,0 +1,259 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders sitemap.xml from a streamed pathname/updatedAt projection and keeps the raw and
+ * gzipped bytes in memory. Local content writes mark the sitemap stale; writes on other
+ * instances are noticed through a cheap change token (public count + latest updatedAt).
+ * Regeneration happens on the scheduler, never on a crawler request, except for the very
+ * first one after startup.
+ */
+@Service
+public class SitemapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitemapService.class);
+
+    public static final String INDEX_NAME = "sitemap.xml";
+
+    private static final String BASE_URL = "https://fremontmi.com";
+    private static final int MAX_URLS_PER_FILE = 50_000;
+
+    private static final List<StaticPage> STATIC_PAGES = List.of(
+            new StaticPage("/", "daily", "1.0"),
+            new StaticPage("/articles/parks", "monthly", "0.5"),
+            new StaticPage("/articles/coming-soon-taqueria-de-gallo", "monthly", "0.5"),
+            new StaticPage("/articles/share-the-joy-give-toys-spread-smiles", "monthly", "0.5"),
+            new StaticPage("/articles/cozy-cups", "monthly", "0.5")
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Map<String, SitemapFile> files = Map.of();
+    private volatile boolean stale = true;
+    private String renderedChangeToken;
+
+    // A lock rather than synchronized: rendering reads from Mongo and must not pin a virtual thread's carrier
+    private final ReentrantLock renderLock = new ReentrantLock();
+
+    public SitemapService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<SitemapFile> getFile(String name) {
+        if (files.isEmpty()) {
+            renderIfMissing();
+        }
+        return Optional.ofNullable(files.get(name));
+    }
+
+    private void renderIfMissing() {
+        renderLock.lock();
+        try {
+            if (files.isEmpty()) {
+                regenerate();
+            }
+        } finally {
+            renderLock.unlock();
+        }
+    }
+
+    public void markStale() {
+        stale = true;
+    }
+
+    @Scheduled(fixedDelayString = "${sitemap.refresh-interval:PT1M}", initialDelayString = "PT1M")
+    public void refreshIfChanged() {
+        if (stale || !Objects.equals(renderedChangeToken, currentChangeToken())) {
+            regenerate();
+        }
+    }
+
+    public void regenerate() {
+        renderLock.lock();
+        try {
+            render();
+        } finally {
+            renderLock.unlock();
+        }
+    }
+
+    private void render() {
+        long start = System.currentTimeMillis();
+        // Cleared first so writes that land while rendering mark it stale again
+        stale = false;
+        String changeToken = currentChangeToken();
+
+        Query query = new Query(Criteria.where("visibility").is(ContentVisibility.PUBLIC));
+        query.fields().include("pathname", "updatedAt", "createdAt");
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+
+        Map<String, SitemapFile> rendered = new HashMap<>();
+        List<String> fileNames = new ArrayList<>();
+        UrlSetWriter current = new UrlSetWriter();
+        int urls = 0;
+
+        for (StaticPage page : STATIC_PAGES) {
+            current.write(page.path, null, page.changefreq, page.priority);
+            urls++;
+        }
+
+        try (Stream<Content> publicContent = mongoTemplate.stream(query, Content.class)) {
+            for (Iterator<Content> iterator = publicContent.iterator(); iterator.hasNext(); ) {
+                Content content = iterator.next();
+                if (content.getPathname() == null) {
+                    continue;
+                }
+
+                if (current.size() == MAX_URLS_PER_FILE) {
+                    String name = "sitemap-" + (fileNames.size() + 1) + ".xml";
+                    rendered.put(name, current.finish());
+                    fileNames.add(name);
+                    current = new UrlSetWriter();
+                }
+
+                LocalDateTime lastModified = content.getUpdatedAt() != null ? content.getUpdatedAt() : content.getCreatedAt();
+                current.write(content.getPathname(), lastModified, "weekly", "0.5");
+                urls++;
+            }
+        }
+
+        if (fileNames.isEmpty()) {
+            rendered.put(INDEX_NAME, current.finish());
+        } else {
+            String name = "sitemap-" + (fileNames.size() + 1) + ".xml";
+            rendered.put(name, current.finish());
+            fileNames.add(name);
+            rendered.put(INDEX_NAME, renderIndex(fileNames));
+        }
+
+        files = Map.copyOf(rendered);
+        renderedChangeToken = changeToken;
+
+        logger.info("Rendered {} sitemap urls into {} file(s) in {} ms", urls, rendered.size(), System.currentTimeMillis() - start);
+    }
+
+    private String currentChangeToken() {
+        Query publicContent = new Query(Criteria.where("visibility").is(ContentVisibility.PUBLIC));
+        long count = mongoTemplate.count(publicContent, Content.class);
+
+        Query latest = new Query(Criteria.where("visibility").is(ContentVisibility.PUBLIC))
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+                .limit(1);
+        latest.fields().include("updatedAt");
+        Content latestContent = mongoTemplate.findOne(latest, Content.class);
+
+        return count + ":" + (latestContent != null ? latestContent.getUpdatedAt() : null);
+    }
+
+    private SitemapFile renderIndex(List<String> fileNames) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        String lastModified = DateTimeFormatter.ISO_LOCAL_DATE.format(LocalDateTime.now());
+
+        for (String fileName : fileNames) {
+            xml.append("<sitemap><loc>").append(BASE_URL).append('/').append(fileName).append("</loc>")
+                    .append("<lastmod>").append(lastModified).append("</lastmod></sitemap>\n");
+        }
+        xml.append("</sitemapindex>\n");
+
+        return SitemapFile.of(xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    private static final class UrlSetWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        private final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        private int size;
+
+        UrlSetWriter() {
+            append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        }
+
+        void write(String path, LocalDateTime lastModified, String changefreq, String priority) {
+            append("<url><loc>");
+            append(BASE_URL);
+            append(escape(path));
+            append("</loc>");
+            if (lastModified != null) {
+                append("<lastmod>");
+                append(DateTimeFormatter.ISO_LOCAL_DATE.format(lastModified));
+                append("</lastmod>");
+            }
+            append("<changefreq>");
+            append(changefreq);
+            append("</changefreq><priority>");
+            append(priority);
+            append("</priority></url>\n");
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        SitemapFile finish() {
+            append("</urlset>\n");
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return SitemapFile.of(bytes.toByteArray());
+        }
+
+        private void append(String value) {
+            try {
+                writer.write(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public record SitemapFile(byte[] xml, byte[] gzip, String etag, Instant lastModified) {
+
+        static SitemapFile of(byte[] xml) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(xml.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(xml);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return new SitemapFile(xml, compressed.toByteArray(), "\"" + DigestUtils.md5DigestAsHex(xml) + "\"", Instant.now());
+        }
+    }
+
+    private record StaticPage(String path, String changefreq, String priority) {
+    }
+}
@@ -6,7 +6,9 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.paulpladziewicz.fremontmi.content.ContentType;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -25,6 +27,9 @@ public class Tag {
 
     private Map<ContentType, Integer> countByContentType = new HashMap<>();
 
+    // Canonical names that are rewritten to this tag, e.g. "dogs" and "dog" for "dog-friendly"
+    private List<String> synonyms = new ArrayList<>();
+
     public Tag(String name, String displayName) {
         this.name = name;
         this.displayName = displayName;
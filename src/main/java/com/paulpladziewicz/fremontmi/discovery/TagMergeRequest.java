@@ -0,0 +1,6 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.util.List;
+
+public record TagMergeRequest(String target, List<String> sources) {
+}
@@ -0,0 +1,6 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.util.List;
+
+public record TagMergeResult(String target, List<String> mergedTags, List<String> synonyms, long retaggedContent) {
+}
@@ -0,0 +1,13 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of one reconciliation run. countDrift sums the absolute corrections to Tag.count and
+ * typeCountDrift those to countByContentType. skippedTags changed while the run was in flight
+ * and are left for the next run; untrackedTags are used by content but have no tag document.
+ */
+public record TagReconciliationReport(LocalDateTime finishedAt, long durationMillis, int tagsChecked, int tagsCorrected,
+                                      int skippedTags, long countDrift, long typeCountDrift, List<String> untrackedTags) {
+}
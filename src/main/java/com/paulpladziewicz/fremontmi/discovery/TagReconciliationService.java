@@ -0,0 +1,157 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recomputes Tag.count and countByContentType from the content collection and writes back only
+ * the tags that drifted. Each correction is guarded by the counts it was computed against, so a
+ * tag that was incremented meanwhile, or already fixed by another instance, is left alone.
+ */
+@Service
+public class TagReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagReconciliationService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile TagReconciliationReport lastReport;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    public TagReconciliationService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<TagReconciliationReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    @Scheduled(fixedDelayString = "${tags.reconciliation.interval:PT24H}", initialDelayString = "PT10M")
+    @Caching(evict = {
+            @CacheEvict(value = "popularTags", allEntries = true),
+            @CacheEvict(value = "globalPopularTags", allEntries = true)
+    })
+    public TagReconciliationReport reconcile() {
+        reconcileLock.lock();
+        try {
+            return reconcileCounts();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private TagReconciliationReport reconcileCounts() {
+        long start = System.currentTimeMillis();
+
+        // Content stores tag display names, which are unique per tag
+        Map<String, Map<ContentType, Integer>> actualCounts = countTagsInContent();
+        List<Tag> tags = mongoTemplate.findAll(Tag.class);
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Tag.class);
+        int corrections = 0;
+        long countDrift = 0;
+        long typeCountDrift = 0;
+        Set<String> trackedDisplayNames = new HashSet<>();
+
+        for (Tag tag : tags) {
+            trackedDisplayNames.add(tag.getDisplayName());
+
+            Map<ContentType, Integer> actual = actualCounts.getOrDefault(tag.getDisplayName(), Map.of());
+            Map<ContentType, Integer> recorded = Optional.ofNullable(tag.getCountByContentType()).orElse(Map.of());
+            int actualTotal = actual.values().stream().mapToInt(Integer::intValue).sum();
+
+            Query guard = Query.query(Criteria.where("_id").is(tag.getId()).and("count").is(tag.getCount()));
+            Update update = new Update();
+            long typeDrift = 0;
+
+            for (ContentType type : ContentType.values()) {
+                int actualCount = actual.getOrDefault(type, 0);
+                Integer recordedCount = recorded.get(type);
+
+                if (actualCount == Optional.ofNullable(recordedCount).orElse(0)) {
+                    continue;
+                }
+
+                String field = "countByContentType." + type.name();
+                guard.addCriteria(recordedCount == null ? Criteria.where(field).exists(false) : Criteria.where(field).is(recordedCount));
+                update.set(field, actualCount);
+                typeDrift += Math.abs(actualCount - Optional.ofNullable(recordedCount).orElse(0));
+            }
+
+            if (actualTotal != tag.getCount()) {
+                update.set("count", actualTotal);
+            }
+
+            if (typeDrift > 0 || actualTotal != tag.getCount()) {
+                bulkOperations.updateOne(guard, update);
+                corrections++;
+                countDrift += Math.abs(actualTotal - tag.getCount());
+                typeCountDrift += typeDrift;
+            }
+        }
+
+        int corrected = 0;
+        if (corrections > 0) {
+            BulkWriteResult result = bulkOperations.execute();
+            corrected = result.getModifiedCount();
+        }
+
+        List<String> untrackedTags = actualCounts.keySet().stream()
+                .filter(displayName -> !trackedDisplayNames.contains(displayName))
+                .sorted()
+                .toList();
+
+        TagReconciliationReport report = new TagReconciliationReport(LocalDateTime.now(), System.currentTimeMillis() - start,
+                tags.size(), corrected, corrections - corrected, countDrift, typeCountDrift, untrackedTags);
+        lastReport = report;
+
+        if (corrections > 0 || !untrackedTags.isEmpty()) {
+            logger.warn("Tag reconciliation corrected {} of {} tags (count drift {}, per-type drift {}), {} skipped, {} content tags without a tag document",
+                    corrected, tags.size(), countDrift, typeCountDrift, corrections - corrected, untrackedTags.size());
+        } else {
+            logger.info("Tag reconciliation found no drift across {} tags in {} ms", tags.size(), report.durationMillis());
+        }
+
+        return report;
+    }
+
+    private Map<String, Map<ContentType, Integer>> countTagsInContent() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project("tags", "type"),
+                Aggregation.unwind("tags"),
+                Aggregation.group("tags", "type").count().as("count")
+        );
+
+        Map<String, Map<ContentType, Integer>> counts = new HashMap<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, Content.class, Document.class)) {
+            Document id = document.get("_id", Document.class);
+            if (id.getString("tags") == null || id.getString("type") == null) {
+                continue;
+            }
+            counts.computeIfAbsent(id.getString("tags"), tag -> new EnumMap<>(ContentType.class))
+                    .put(ContentType.valueOf(id.getString("type")), document.getInteger("count"));
+        }
+
+        return counts;
+    }
+}
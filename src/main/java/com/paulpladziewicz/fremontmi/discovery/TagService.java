@@ -1,14 +1,25 @@
 package com.paulpladziewicz.fremontmi.discovery;
 
 import com.paulpladziewicz.fremontmi.content.Content;
+import com.paulpladziewicz.fremontmi.content.ContentChangeTokens;
 import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.content.PageCache;
 
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,9 +33,171 @@ public class TagService {
 
     private final MongoTemplate mongoTemplate;
 
-    public TagService(TagRepository tagRepository, MongoTemplate mongoTemplate) {
+    private final TagSpellingIndex tagSpellingIndex;
+
+    private final ContentChangeTokens contentChangeTokens;
+
+    private final SemanticResultCache semanticResultCache;
+
+    private final PageCache pageCache;
+
+    // Synonym canonical name -> canonical name of the tag it was merged into
+    private volatile Map<String, String> synonymTargets = Map.of();
+
+    public TagService(TagRepository tagRepository, MongoTemplate mongoTemplate, TagSpellingIndex tagSpellingIndex, ContentChangeTokens contentChangeTokens, SemanticResultCache semanticResultCache, PageCache pageCache) {
         this.tagRepository = tagRepository;
         this.mongoTemplate = mongoTemplate;
+        this.tagSpellingIndex = tagSpellingIndex;
+        this.contentChangeTokens = contentChangeTokens;
+        this.semanticResultCache = semanticResultCache;
+        this.pageCache = pageCache;
+    }
+
+    // Tags and synonyms created on other instances only show up here after the next refresh
+    @Scheduled(fixedDelayString = "${tags.spelling.refresh-interval:PT15M}")
+    public void refreshTagIndexes() {
+        List<Tag> tags = tagRepository.findAll();
+        Map<String, String> targets = new HashMap<>();
+
+        for (Tag tag : tags) {
+            if (tag.getSynonyms() != null) {
+                tag.getSynonyms().forEach(synonym -> targets.put(synonym, tag.getName()));
+            }
+        }
+
+        tagSpellingIndex.rebuild(tags);
+        synonymTargets = Map.copyOf(targets);
+    }
+
+    // Maps a tag typed into a url ("yogga") to the stored display name ("Yoga"), if anything is close enough
+    public Optional<TagSpellingIndex.TagMatch> resolveTag(String input) {
+        return tagSpellingIndex.lookup(canonicalize(input));
+    }
+
+    // Model attributes for a tag filtered page: the tag as typed, plus the correction when the match wasn't exact
+    public Map<String, Object> tagMatchAttributes(String requestedTag, Optional<TagSpellingIndex.TagMatch> tagMatch) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("requestedTag", requestedTag);
+        tagMatch.filter(TagSpellingIndex.TagMatch::isCorrected)
+                .ifPresent(match -> attributes.put("correctedTag", match.displayName()));
+        return attributes;
+    }
+
+    public List<Tag> findUnreviewedTags() {
+        return tagRepository.tagsNotReviewed();
+    }
+
+    public void markReviewed(String name) {
+        Tag tag = tagRepository.findByName(canonicalize(name))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown tag: " + name));
+        tag.setReviewed(true);
+        tagRepository.save(tag);
+    }
+
+    /**
+     * Folds the source tags into the target: content is retagged server side, the target's counts
+     * absorb the sources, and the source names become synonyms so future input lands on the target.
+     * Sources that are not existing tags are only registered as synonyms.
+     */
+    @Caching(evict = {
+            @CacheEvict(value = "popularTags", allEntries = true),
+            @CacheEvict(value = "globalPopularTags", allEntries = true)
+    })
+    public TagMergeResult mergeTags(String targetName, List<String> sourceNames) {
+        Tag target = tagRepository.findByName(canonicalize(targetName))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown tag: " + targetName));
+
+        Set<String> synonyms = sourceNames.stream()
+                .map(this::generateCanonicalName)
+                .filter(name -> !name.isEmpty() && !name.equals(target.getName()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        List<Tag> sources = tagRepository.findByNameIn(synonyms);
+        List<String> sourceDisplayNames = sources.stream().map(Tag::getDisplayName).toList();
+        // Stop suggesting the sources while content is retagged, not just after the rebuild below
+        sources.forEach(source -> tagSpellingIndex.remove(source.getName()));
+        sources.stream()
+                .filter(source -> source.getSynonyms() != null)
+                .forEach(source -> synonyms.addAll(source.getSynonyms()));
+
+        Update update = new Update()
+                .set("reviewed", true)
+                .addToSet("synonyms").each(synonyms.toArray());
+
+        long retaggedContent = 0;
+        if (!sources.isEmpty()) {
+            // Content already carrying the target tag is deduplicated and must not be counted twice
+            Map<String, Integer> newlyTaggedByType = countContentMissingTag(sourceDisplayNames, target.getDisplayName());
+            Map<Object, String> retaggedTypes = findTaggedContentTypes(sourceDisplayNames);
+            retaggedContent = retagContent(sourceDisplayNames, target.getDisplayName());
+            if (retaggedContent > 0) {
+                afterRetag(retaggedTypes);
+            }
+
+            newlyTaggedByType.forEach((type, count) -> update.inc("countByContentType." + type, count));
+            update.inc("count", newlyTaggedByType.values().stream().mapToInt(Integer::intValue).sum());
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(target.getId())), update, Tag.class);
+        tagRepository.deleteAll(sources);
+        refreshTagIndexes();
+
+        return new TagMergeResult(target.getDisplayName(), sourceDisplayNames, List.copyOf(synonyms), retaggedContent);
+    }
+
+    private Map<String, Integer> countContentMissingTag(List<String> sourceDisplayNames, String targetDisplayName) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().andOperator(
+                        Criteria.where("tags").in(sourceDisplayNames),
+                        Criteria.where("tags").ne(targetDisplayName))),
+                Aggregation.group("type").count().as("count")
+        );
+
+        Map<String, Integer> countsByType = new HashMap<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, Content.class, Document.class)) {
+            countsByType.put(document.getString("_id"), document.getInteger("count"));
+        }
+
+        return countsByType;
+    }
+
+    // Content _id -> type name for everything carrying one of the tags
+    private Map<Object, String> findTaggedContentTypes(List<String> displayNames) {
+        Map<Object, String> types = new HashMap<>();
+        mongoTemplate.getCollection("content").find(Filters.in("tags", displayNames))
+                .projection(Projections.include("type"))
+                .forEach(document -> types.put(document.get("_id"), document.getString("type")));
+        return types;
+    }
+
+    // Tags are part of the embedding input, so retagged vectors are re-embedded by VectorService.reembedStaleVectors
+    private void afterRetag(Map<Object, String> retaggedTypes) {
+        mongoTemplate.getCollection("content_vectors").updateMany(Filters.in("_id", retaggedTypes.keySet()), Updates.set("stale", true));
+        semanticResultCache.invalidate();
+
+        contentChangeTokens.touchAll();
+        retaggedTypes.values().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(ContentType::valueOf)
+                .forEach(pageCache::evictType);
+    }
+
+    // One pipeline updateMany: swap source tags for the target, drop duplicates, keep the original order
+    private long retagContent(List<String> sourceDisplayNames, String targetDisplayName) {
+        Document replacedTags = new Document("$map", new Document("input", "$tags").append("as", "tag")
+                .append("in", new Document("$cond", List.of(new Document("$in", List.of("$$tag", sourceDisplayNames)), targetDisplayName, "$$tag"))));
+        Document dedupedTags = new Document("$reduce", new Document("input", replacedTags).append("initialValue", List.of())
+                .append("in", new Document("$cond", List.of(
+                        new Document("$in", List.of("$$this", "$$value")),
+                        "$$value",
+                        new Document("$concatArrays", List.of("$$value", List.of("$$this")))))));
+        // Bump the optimistic lock version so an edit form opened before the merge can't write the old tags back
+        Document nextVersion = new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+
+        List<Document> pipeline = List.of(new Document("$set", new Document("tags", dedupedTags).append("version", nextVersion)));
+
+        return mongoTemplate.getCollection("content").updateMany(Filters.in("tags", sourceDisplayNames), pipeline).getModifiedCount();
     }
 
     public List<TagUsage> getTopTags(int limit) {
@@ -98,6 +271,17 @@ public class TagService {
                 .collect(Collectors.toList());
     }
 
+    public List<String> findDisplayNames(Collection<String> names) {
+        Set<String> canonicalNames = names.stream()
+                .map(this::canonicalize)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+
+        return tagRepository.findByNameIn(canonicalNames).stream()
+                .map(Tag::getDisplayName)
+                .toList();
+    }
+
     @Transactional
     public List<String> addTags(List<String> displayNames, ContentType contentType) {
         List<String> validatedDisplayNames = new ArrayList<>();
@@ -105,7 +289,7 @@ public class TagService {
 
         for (String displayName : displayNames) {
             // Generate the canonical name (lowercase, no spaces, but keep special characters)
-            String canonicalName = generateCanonicalName(displayName);
+            String canonicalName = canonicalize(displayName);
 
             // Skip if this canonical name has already been processed
             if (canonicalTagsSet.contains(canonicalName)) {
@@ -125,6 +309,7 @@ public class TagService {
                 existingTag.incrementCountForContentType(contentType);
                 existingTag.setCount(existingTag.getCount() + 1);
                 tagRepository.save(existingTag);
+                tagSpellingIndex.add(canonicalName, existingTag.getDisplayName(), existingTag.getCount());
             } else {
                 // Tag does not exist, create a new one
                 Tag newTag = new Tag(canonicalName, formattedDisplayName);
@@ -132,6 +317,7 @@ public class TagService {
                 newTag.incrementCountForContentType(contentType);
                 newTag.setCount(1);
                 tagRepository.save(newTag);
+                tagSpellingIndex.add(canonicalName, formattedDisplayName, 1);
             }
         }
 
@@ -141,11 +327,11 @@ public class TagService {
     @Transactional
     public List<String> updateTags(List<String> newDisplayNames, List<String> oldDisplayNames, ContentType contentType) {
         Set<String> newCanonicalTags = newDisplayNames.stream()
-                .map(this::generateCanonicalName)
+                .map(this::canonicalize)
                 .collect(Collectors.toSet());
 
         Set<String> oldCanonicalTags = oldDisplayNames.stream()
-                .map(this::generateCanonicalName)
+                .map(this::canonicalize)
                 .collect(Collectors.toSet());
 
         Set<String> tagsToAdd = new HashSet<>(newCanonicalTags);
@@ -157,7 +343,7 @@ public class TagService {
         List<String> validatedDisplayNames = new ArrayList<>();
 
         for (String displayName : newDisplayNames) {
-            String canonicalName = generateCanonicalName(displayName);
+            String canonicalName = canonicalize(displayName);
 
             if (tagsToAdd.contains(canonicalName)) {
                 validatedDisplayNames.addAll(addTags(List.of(displayName), contentType));
@@ -169,7 +355,7 @@ public class TagService {
 
         if (!tagsToRemove.isEmpty()) {
             List<String> tagsToRemoveDisplayNames = oldDisplayNames.stream()
-                    .filter(tag -> tagsToRemove.contains(generateCanonicalName(tag)))
+                    .filter(tag -> tagsToRemove.contains(canonicalize(tag)))
                     .collect(Collectors.toList());
             removeTags(tagsToRemoveDisplayNames, contentType);
         }
@@ -183,7 +369,7 @@ public class TagService {
 
         for (String displayName : displayNames) {
             // Generate the canonical name (lowercase, no spaces, but keep special characters)
-            String canonicalName = generateCanonicalName(displayName);
+            String canonicalName = canonicalize(displayName);
 
             // Skip if this canonical name has already been processed
             if (processedCanonicalTags.contains(canonicalName)) {
@@ -205,10 +391,23 @@ public class TagService {
                 existingTag.decrementCountForContentType(contentType);
                 // Save changes if counts are updated
                 tagRepository.save(existingTag);
+
+                // Keep suggestion ranking current, and stop suggesting a tag nothing uses anymore
+                if (existingTag.getCount() > 0) {
+                    tagSpellingIndex.add(canonicalName, existingTag.getDisplayName(), existingTag.getCount());
+                } else {
+                    tagSpellingIndex.remove(canonicalName);
+                }
             }
         }
     }
 
+    // Canonical name after synonym mapping, so "dogs" is stored and counted as the tag it was merged into
+    private String canonicalize(String displayName) {
+        String canonicalName = generateCanonicalName(displayName);
+        return synonymTargets.getOrDefault(canonicalName, canonicalName);
+    }
+
     // Helper method to generate the canonical form of a tag
     private String generateCanonicalName(String displayName) {
         // Remove all characters except lowercase letters, spaces, and hyphens
@@ -0,0 +1,194 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symmetric-delete spelling index over canonical tag names. Every tag is stored under all
+ * strings reachable by deleting up to two characters; a lookup generates the same deletes
+ * for the input and only verifies the few tags that share one, so there is no scan over the
+ * dictionary and no per-lookup edit distance against every tag.
+ */
+@Component
+public class TagSpellingIndex {
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    private volatile Dictionary dictionary = new Dictionary();
+
+    public void rebuild(Iterable<Tag> tags) {
+        Dictionary rebuilt = new Dictionary();
+        for (Tag tag : tags) {
+            if (tag.getCount() > 0) {
+                rebuilt.add(tag.getName(), tag.getDisplayName(), tag.getCount());
+            }
+        }
+        dictionary = rebuilt;
+    }
+
+    public void add(String canonicalName, String displayName, int count) {
+        dictionary.add(canonicalName, displayName, count);
+    }
+
+    // For tags that are merged away or no longer used, so they stop being suggested before the next rebuild
+    public void remove(String canonicalName) {
+        dictionary.remove(canonicalName);
+    }
+
+    public int size() {
+        return dictionary.entries.size();
+    }
+
+    public Optional<TagMatch> lookup(String canonicalInput) {
+        if (canonicalInput == null || canonicalInput.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Dictionary current = dictionary;
+        Entry exact = current.entries.get(canonicalInput);
+        if (exact != null) {
+            return Optional.of(new TagMatch(exact.displayName, 0));
+        }
+
+        // Short tags get less slack, otherwise "art" would match "cat" and "bar"
+        int maxDistance = canonicalInput.length() <= 4 ? 1 : MAX_EDIT_DISTANCE;
+
+        Set<String> candidates = new HashSet<>();
+        for (String delete : deletes(canonicalInput, maxDistance)) {
+            Set<String> names = current.deletes.get(delete);
+            if (names != null) {
+                candidates.addAll(names);
+            }
+        }
+
+        Entry best = null;
+        int bestDistance = maxDistance + 1;
+
+        for (String candidate : candidates) {
+            if (Math.abs(candidate.length() - canonicalInput.length()) > maxDistance) {
+                continue;
+            }
+
+            int distance = editDistance(canonicalInput, candidate, maxDistance);
+            if (distance > maxDistance) {
+                continue;
+            }
+
+            // Removed since its deletes were read
+            Entry entry = current.entries.get(candidate);
+            if (entry == null) {
+                continue;
+            }
+
+            if (distance < bestDistance || (distance == bestDistance && entry.count > best.count)) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new TagMatch(best.displayName, bestDistance));
+    }
+
+    private static Set<String> deletes(String word, int maxDistance) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(word);
+        addDeletes(word, maxDistance, deletes);
+        return deletes;
+    }
+
+    private static void addDeletes(String word, int remaining, Set<String> deletes) {
+        if (remaining == 0 || word.length() <= 1) {
+            return;
+        }
+
+        for (int i = 0; i < word.length(); i++) {
+            String delete = word.substring(0, i) + word.substring(i + 1);
+            if (deletes.add(delete)) {
+                addDeletes(delete, remaining - 1, deletes);
+            }
+        }
+    }
+
+    // Optimal string alignment distance, so a swapped pair of letters counts as one edit
+    private static int editDistance(String a, String b, int maxDistance) {
+        int[][] distances = new int[a.length() + 1][b.length() + 1];
+
+        for (int i = 0; i <= a.length(); i++) {
+            distances[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            distances[0][j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMinimum = Integer.MAX_VALUE;
+
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(distances[i - 1][j] + 1, distances[i][j - 1] + 1), distances[i - 1][j - 1] + cost);
+
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, distances[i - 2][j - 2] + 1);
+                }
+
+                distances[i][j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+
+        return distances[a.length()][b.length()];
+    }
+
+    public record TagMatch(String displayName, int distance) {
+
+        public boolean isCorrected() {
+            return distance > 0;
+        }
+    }
+
+    private record Entry(String displayName, int count) {
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> deletes = new ConcurrentHashMap<>();
+
+        void add(String canonicalName, String displayName, int count) {
+            if (canonicalName == null || canonicalName.isEmpty()) {
+                return;
+            }
+
+            if (entries.put(canonicalName, new Entry(displayName, count)) == null) {
+                for (String delete : TagSpellingIndex.deletes(canonicalName, MAX_EDIT_DISTANCE)) {
+                    deletes.computeIfAbsent(delete, key -> ConcurrentHashMap.newKeySet()).add(canonicalName);
+                }
+            }
+        }
+
+        void remove(String canonicalName) {
+            if (canonicalName == null || entries.remove(canonicalName) == null) {
+                return;
+            }
+
+            for (String delete : TagSpellingIndex.deletes(canonicalName, MAX_EDIT_DISTANCE)) {
+                deletes.computeIfPresent(delete, (key, names) -> {
+                    names.remove(canonicalName);
+                    return names.isEmpty() ? null : names;
+                });
+            }
+        }
+    }
+}
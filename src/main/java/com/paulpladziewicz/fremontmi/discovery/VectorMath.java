@@ -0,0 +1,52 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import java.util.List;
+
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    public static float[] normalize(List<Double> vector) {
+        return normalize(vector, vector.size());
+    }
+
+    // Truncates to the first 'dimensions' components and rescales to unit length,
+    // so cosine similarity reduces to a dot product.
+    public static float[] normalize(List<Double> vector, int dimensions) {
+        int size = Math.min(dimensions, vector.size());
+        float[] normalized = new float[size];
+        double norm = 0;
+
+        for (int i = 0; i < size; i++) {
+            double value = vector.get(i);
+            normalized[i] = (float) value;
+            norm += value * value;
+        }
+
+        if (norm == 0) {
+            return normalized;
+        }
+
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < size; i++) {
+            normalized[i] *= scale;
+        }
+
+        return normalized;
+    }
+
+    // Both vectors are expected to be normalized already.
+    public static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+
+        return dot;
+    }
+}
@@ -1,5 +1,6 @@
 package com.paulpladziewicz.fremontmi.discovery;
 
+import com.paulpladziewicz.fremontmi.content.Content;
 import com.paulpladziewicz.fremontmi.content.ContentType;
 
 import lombok.Data;
@@ -17,4 +18,13 @@ public class VectorSearchDto {
         this.title = title;
         this.description = description;
     }
+
+    public static VectorSearchDto from(Content content) {
+        return new VectorSearchDto(
+                content.getType(),
+                content.getPathname(),
+                content.getDetail().getTitle(),
+                content.getDetail().getDescription()
+        );
+    }
 }
@@ -0,0 +1,87 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import com.mongodb.client.model.Filters;
+import com.paulpladziewicz.fremontmi.content.ContentStatus;
+import com.paulpladziewicz.fremontmi.content.ContentType;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Pre-filter applied inside $vectorSearch so only public, active content of the requested
+ * type is ranked. Every field used here must be declared as a "filter" field on the
+ * vector search indexes (see mongosh/createVectorSearchIndexes.js).
+ */
+public record VectorSearchFilter(ContentType type, boolean upcomingOnly) {
+
+    public static VectorSearchFilter defaults() {
+        return new VectorSearchFilter(null, true);
+    }
+
+    // Accepts either the enum name ("NEIGHBOR_SERVICES_PROFILE") or the hyphenated form used in urls
+    public static VectorSearchFilter of(String type, Boolean upcomingOnly) {
+        ContentType contentType = null;
+
+        if (type != null && !type.isBlank()) {
+            try {
+                contentType = ContentType.valueOf(type.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown content type: " + type);
+            }
+        }
+
+        return new VectorSearchFilter(contentType, upcomingOnly == null || upcomingOnly);
+    }
+
+    // Vectors from different embedding models are not comparable, so only the active model is searched
+    public Bson toBson(String model) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq("model", model));
+        filters.add(Filters.eq("visibility", ContentVisibility.PUBLIC.name()));
+        filters.add(Filters.eq("status", ContentStatus.ACTIVE.name()));
+
+        if (type != null) {
+            filters.add(Filters.eq("type", type.name()));
+        }
+
+        if (upcomingOnly && (type == null || type == ContentType.EVENT)) {
+            Date startOfToday = Date.from(LocalDate.now().atTime(LocalTime.MIDNIGHT).atZone(ZoneId.systemDefault()).toInstant());
+            filters.add(Filters.or(
+                    Filters.ne("type", ContentType.EVENT.name()),
+                    Filters.gte("lastEventStartTime", startOfToday)
+            ));
+        }
+
+        return Filters.and(filters);
+    }
+
+    // The same restrictions applied to content documents, for the lexical matches shown beside vector results
+    public Criteria toContentCriteria() {
+        Criteria criteria = Criteria.where("visibility").is(ContentVisibility.PUBLIC.name())
+                .and("status").is(ContentStatus.ACTIVE.name());
+
+        if (type != null) {
+            criteria.and("type").is(type.name());
+        }
+
+        if (upcomingOnly && (type == null || type == ContentType.EVENT)) {
+            criteria.orOperator(
+                    Criteria.where("type").ne(ContentType.EVENT.name()),
+                    Criteria.where("detail.days.startTime").gte(LocalDate.now().atStartOfDay()));
+        }
+
+        return criteria;
+    }
+
+    // Upcoming-event filtering moves with the calendar, so the date is part of the key
+    public String cacheKey() {
+        return (type == null ? "ANY" : type.name()) + (upcomingOnly ? ":upcoming:" + LocalDate.now() : ":all");
+    }
+}
@@ -0,0 +1,17 @@
+package com.paulpladziewicz.fremontmi.discovery;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class VectorSearchPageDto {
+    private List<VectorSearchDto> results;
+    // Null when there are no more results
+    private String nextCursor;
+
+    public VectorSearchPageDto(List<VectorSearchDto> results, String nextCursor) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -3,131 +3,268 @@ package com.paulpladziewicz.fremontmi.discovery;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import com.mongodb.client.model.search.FieldSearchPath;
 import com.paulpladziewicz.fremontmi.content.Business;
 import com.paulpladziewicz.fremontmi.content.Content;
 import com.paulpladziewicz.fremontmi.content.ContentDetail;
 import com.paulpladziewicz.fremontmi.content.ContentRepository;
 import com.paulpladziewicz.fremontmi.content.ContentService;
+import com.paulpladziewicz.fremontmi.content.ContentStatus;
 import com.paulpladziewicz.fremontmi.content.ContentType;
 import com.paulpladziewicz.fremontmi.content.ContentVector;
 import com.paulpladziewicz.fremontmi.content.ContentVectorRepository;
+import com.paulpladziewicz.fremontmi.content.ContentVisibility;
 import com.paulpladziewicz.fremontmi.content.Event;
 import com.paulpladziewicz.fremontmi.content.Group;
 import com.paulpladziewicz.fremontmi.content.NeighborServicesProfile;
 
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.mongodb.client.model.Aggregates.project;
 import static com.mongodb.client.model.Aggregates.vectorSearch;
 import static com.mongodb.client.model.Projections.*;
 import static com.mongodb.client.model.search.SearchPath.fieldPath;
+import static com.mongodb.client.model.search.VectorSearchOptions.vectorSearchOptions;
 
 import static java.util.Arrays.asList;
 
 @Service
 public class VectorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(VectorService.class);
+
+    static final int DEFAULT_LIMIT = 5;
+
+    static final String VECTOR_DATABASE = "fremontmi";
+
     private final ContentService contentService;
-    @Value("${openai.api.key}")
-    private String apiKey;
+    @Value("${vector.search.relevance-threshold:0.65}")
+    private double relevanceThreshold;
+
+    @Value("${vector.search.two-stage:false}")
+    private boolean twoStageSearch;
+
+    @Value("${vector.search.short-dimensions:256}")
+    private int shortDimensions;
+
+    @Value("${vector.search.candidate-pool:50}")
+    private int candidatePool;
+
+    @Value("${vector.search.num-candidates:50}")
+    private int numCandidates;
+
+    @Value("${vector.search.ranking-size:50}")
+    private int rankingSize;
+
+    @Value("${vector.reembed.claim:PT10M}")
+    private Duration reembedClaim;
 
     private final ContentRepository contentRepository;
     private final ContentVectorRepository contentVectorRepository;
     private final SearchHistoryRepository searchHistoryRepository;
-    private final RestTemplate restTemplate;
+    private final EmbeddingProvider embeddingProvider;
     private final MongoClient mongoClient;
+    private final SemanticResultCache semanticResultCache;
+    private final SearchRankingCache searchRankingCache;
 
-    public VectorService(ContentRepository contentRepository, ContentVectorRepository contentVectorRepository, SearchHistoryRepository searchHistoryRepository, RestTemplate restTemplate, MongoClient mongoClient, ContentService contentService) {
+    public VectorService(ContentRepository contentRepository, ContentVectorRepository contentVectorRepository, SearchHistoryRepository searchHistoryRepository, EmbeddingProvider embeddingProvider, MongoClient mongoClient, ContentService contentService, SemanticResultCache semanticResultCache, SearchRankingCache searchRankingCache) {
         this.contentRepository = contentRepository;
         this.contentVectorRepository = contentVectorRepository;
         this.searchHistoryRepository = searchHistoryRepository;
-        this.restTemplate = restTemplate;
+        this.embeddingProvider = embeddingProvider;
         this.mongoClient = mongoClient;
         this.contentService = contentService;
+        this.semanticResultCache = semanticResultCache;
+        this.searchRankingCache = searchRankingCache;
     }
 
     public List<Content> searchRelevantContent(String prompt) {
-        MongoDatabase database = mongoClient.getDatabase("fremontmi");
-        MongoCollection<Document> collection = database.getCollection("content_vectors");
-        List<Double> queryVector = generateVectorForPrompt(prompt);
-
-        String indexName = "vector_index_cosine";
-        FieldSearchPath fieldSearchPath = fieldPath("vector");
-        int numCandidates = 5;
-        int limit = 5;
-        double relevanceThreshold = 0.65;
+        return searchRelevantContent(prompt, VectorSearchFilter.defaults());
+    }
 
-        List<Bson> pipeline = asList(
-                vectorSearch(fieldSearchPath, queryVector, indexName, limit, numCandidates),
-                project(fields(include("_id"), metaVectorSearchScore("score")))
-        );
+    public List<Content> searchRelevantContent(String prompt, VectorSearchFilter filter) {
+        return hydrate(searchRelevantContentIds(prompt, filter));
+    }
 
-        List<ResultWithScore> allResultsWithScores = collection.aggregate(pipeline)
-                .map(doc -> new ResultWithScore(doc.getObjectId("_id").toString(), doc.getDouble("score")))
-                .into(new ArrayList<>());
+    // Ranked ids above the relevance threshold, for callers that hydrate and send results one at a time
+    public List<String> searchRelevantContentIds(String prompt, VectorSearchFilter filter) {
+        List<Double> queryVector = embeddingProvider.embed(prompt);
+        List<ResultWithScore> allResultsWithScores = findResults(queryVector, filter, DEFAULT_LIMIT);
 
         System.out.println(allResultsWithScores);
 
-        List<String> filteredResults = allResultsWithScores.stream()
+        List<String> filteredResults = aboveThreshold(allResultsWithScores);
+
+        System.out.println(filteredResults);
+
+        saveSearchHistory(prompt, allResultsWithScores);
+
+        return filteredResults;
+    }
+
+    // Only the first page embeds and searches; later pages slice the cached ranking
+    public SearchPage searchRelevantContentPage(String prompt, VectorSearchFilter filter, SearchCursor position, int pageSize) {
+        List<String> ranking = searchRankingCache.find(position.token(), prompt, filter.cacheKey())
+                .orElseGet(() -> {
+                    List<ResultWithScore> allResultsWithScores = findResults(embeddingProvider.embed(prompt), filter, rankingSize);
+                    if (position.offset() == 0) {
+                        saveSearchHistory(prompt, allResultsWithScores);
+                    }
+
+                    List<String> contentIds = aboveThreshold(allResultsWithScores);
+                    searchRankingCache.put(position.token(), prompt, filter.cacheKey(), contentIds);
+                    return contentIds;
+                });
+
+        int from = Math.min(position.offset(), ranking.size());
+        int to = Math.min(from + pageSize, ranking.size());
+        String nextCursor = to < ranking.size() ? position.next(pageSize).encode() : null;
+
+        return new SearchPage(hydrate(ranking.subList(from, to)), nextCursor);
+    }
+
+    private List<ResultWithScore> findResults(List<Double> queryVector, VectorSearchFilter filter, int limit) {
+        String cacheKey = resultCacheKey(filter, limit);
+
+        return semanticResultCache.find(queryVector, cacheKey)
+                .orElseGet(() -> {
+                    long generation = semanticResultCache.currentGeneration();
+                    List<ResultWithScore> results = runVectorSearch(queryVector, filter, limit);
+                    semanticResultCache.put(queryVector, cacheKey, results, generation);
+                    return results;
+                });
+    }
+
+    static String resultCacheKey(VectorSearchFilter filter, int limit) {
+        return filter.cacheKey() + ":" + limit;
+    }
+
+    List<String> aboveThreshold(List<ResultWithScore> allResultsWithScores) {
+        return allResultsWithScores.stream()
                 .filter(result -> result.getScore() > relevanceThreshold)
                 .map(ResultWithScore::getId)
                 .toList();
+    }
 
-        System.out.println(filteredResults);
+    private void saveSearchHistory(String prompt, List<ResultWithScore> allResultsWithScores) {
+        searchHistoryRepository.save(newSearchHistory(prompt, allResultsWithScores));
+    }
 
+    SearchHistory newSearchHistory(String prompt, List<ResultWithScore> allResultsWithScores) {
         SearchHistory searchHistory = new SearchHistory();
         searchHistory.setPrompt(prompt);
         searchHistory.setAllResultsWithScores(allResultsWithScores);
-        searchHistory.setTimestamp(LocalDateTime.now(ZoneId.of("America/Detroit")));
+        // JVM clock like every other timestamp; the analytics rollup watermark is compared against it
+        searchHistory.setTimestamp(LocalDateTime.now());
+        return searchHistory;
+    }
 
-        searchHistoryRepository.save(searchHistory);
+    public Optional<Content> hydrate(String contentId) {
+        return hydrate(List.of(contentId)).stream().findFirst();
+    }
 
-        List<Content> unorderedContent = contentService.findByArrayOfIds(filteredResults);
+    // Cached ids may point at content that has since been deleted or restricted, so re-check on hydration
+    private List<Content> hydrate(List<String> contentIds) {
+        List<Content> unorderedContent = contentService.findByArrayOfIds(contentIds);
         Map<String, Content> contentMap = unorderedContent.stream()
+                .filter(content -> content.getVisibility() == ContentVisibility.PUBLIC && content.getStatus() == ContentStatus.ACTIVE)
                 .collect(Collectors.toMap(Content::getId, content -> content));
 
-        return filteredResults.stream()
+        return contentIds.stream()
                 .map(contentMap::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
-    private List<Double> generateVectorForPrompt(String prompt) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
+    public SemanticResultCache.Stats getCacheStats() {
+        return semanticResultCache.getStats();
+    }
+
+    private List<ResultWithScore> runVectorSearch(List<Double> queryVector, VectorSearchFilter filter, int limit) {
+        MongoDatabase database = mongoClient.getDatabase(VECTOR_DATABASE);
+        MongoCollection<Document> collection = database.getCollection("content_vectors");
 
-        Map<String, Object> requestBody = Map.of(
-                "model", "text-embedding-3-large",
-                "input", prompt
+        List<Document> documents = collection.aggregate(vectorSearchPipeline(queryVector, filter, limit)).into(new ArrayList<>());
+        return toResults(queryVector, documents, limit);
+    }
+
+    // Shared with the reactive read path, which runs the same pipeline on the async driver
+    List<Bson> vectorSearchPipeline(List<Double> queryVector, VectorSearchFilter filter, int limit) {
+        if (twoStageSearch) {
+            return twoStageVectorSearchPipeline(queryVector, filter, limit);
+        }
+
+        String indexName = "vector_index_cosine";
+        FieldSearchPath fieldSearchPath = fieldPath("vector");
+
+        return asList(
+                vectorSearch(fieldSearchPath, queryVector, indexName, limit, Math.max(numCandidates, limit), vectorSearchOptions().filter(filter.toBson(embeddingProvider.getModel()))),
+                project(fields(include("_id"), metaVectorSearchScore("score")))
         );
+    }
+
+    // Retrieves a wide candidate pool from the short-vector index; toResults reranks it with the full vectors
+    private List<Bson> twoStageVectorSearchPipeline(List<Double> queryVector, VectorSearchFilter filter, int limit) {
+        String indexName = "vector_index_short_cosine";
+        FieldSearchPath fieldSearchPath = fieldPath("shortVector");
+        int poolCandidates = candidatePool * 4;
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<Map> response;
+        return asList(
+                vectorSearch(fieldSearchPath, toShortVector(queryVector), indexName, Math.max(candidatePool, limit), Math.max(poolCandidates, limit * 4), vectorSearchOptions().filter(filter.toBson(embeddingProvider.getModel()))),
+                project(fields(include("_id", "vector")))
+        );
+    }
 
-        try {
-            response = restTemplate.postForEntity("https://api.openai.com/v1/embeddings", request, Map.class);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch vector from OpenAI: " + e.getMessage(), e);
+    List<ResultWithScore> toResults(List<Double> queryVector, List<Document> documents, int limit) {
+        if (!twoStageSearch) {
+            return documents.stream()
+                    .map(doc -> new ResultWithScore(doc.getObjectId("_id").toString(), doc.getDouble("score")))
+                    .toList();
         }
 
-        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
-            throw new RuntimeException("Invalid response from OpenAI: " + response.getStatusCode());
+        float[] normalizedQuery = VectorMath.normalize(queryVector);
+
+        return documents.stream()
+                .map(doc -> new ResultWithScore(doc.getObjectId("_id").toString(),
+                        toSearchScore(VectorMath.cosine(normalizedQuery, VectorMath.normalize(doc.getList("vector", Double.class))))))
+                .sorted(Comparator.comparing(ResultWithScore::getScore).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private List<Double> toShortVector(List<Double> vector) {
+        float[] normalized = VectorMath.normalize(vector, shortDimensions);
+        List<Double> shortVector = new ArrayList<>(normalized.length);
+
+        for (float value : normalized) {
+            shortVector.add((double) value);
         }
 
-        return (List<Double>) ((Map<String, Object>) ((List<?>) response.getBody().get("data")).get(0)).get("embedding");
+        return shortVector;
+    }
+
+    // Atlas reports cosine similarity as (1 + cosine) / 2, keep reranked scores on the same scale
+    private double toSearchScore(double cosine) {
+        return (1 + cosine) / 2;
     }
 
     public void generateVectorsForAllContent() {
@@ -147,35 +284,60 @@ public class VectorService {
                 .orElseThrow(() -> new RuntimeException("Content not found"));
 
         String inputText = buildInputText(content);
+        List<Double> vector = embeddingProvider.embed(inputText);
+
+        ContentVector contentVector = new ContentVector();
+        contentVector.setContentId(contentId);
+        contentVector.setInputText(inputText);
+        contentVector.setVector(vector);
+        contentVector.setShortVector(toShortVector(vector));
+        contentVector.setProvider(embeddingProvider.getProvider());
+        contentVector.setModel(embeddingProvider.getModel());
+        contentVector.setFilterFields(content);
+        contentVector.setUpdatedAt(LocalDateTime.now());
+
+        contentVectorRepository.save(contentVector);
+        semanticResultCache.invalidate();
+        return vector;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
-
-        Map<String, Object> requestBody = Map.of(
-                "model", "text-embedding-3-large",
-                "input", inputText
-        );
-
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-        ResponseEntity<Map> response = restTemplate.postForEntity("https://api.openai.com/v1/embeddings", request, Map.class);
-
-        if (response.getStatusCode() == HttpStatus.OK) {
-            List<Double> vector = (List<Double>) ((Map<String, Object>) ((List<?>) response.getBody().get("data")).get(0)).get("embedding");
+    // Vectors are claimed for a while rather than un-flagged, so the flag only clears when generateVector
+    // saves the new vector; a failed attempt keeps its claim until it lapses and is retried on a later run
+    @Scheduled(fixedDelayString = "${vector.reembed.interval:PT1M}", initialDelayString = "PT1M")
+    public void reembedStaleVectors() {
+        MongoCollection<Document> collection = mongoClient.getDatabase(VECTOR_DATABASE).getCollection("content_vectors");
+        int reembedded = 0;
+
+        Document claimed;
+        while ((claimed = claimStaleVector(collection)) != null) {
+            String contentId = claimed.get("_id").toString();
+
+            // Nothing left to embed, and leaving it would retry forever
+            if (!contentRepository.existsById(contentId)) {
+                contentVectorRepository.deleteById(contentId);
+                continue;
+            }
 
-            ContentVector contentVector = new ContentVector();
-            contentVector.setContentId(contentId);
-            contentVector.setInputText(inputText);
-            contentVector.setVector(vector);
+            try {
+                generateVector(contentId);
+                reembedded++;
+            } catch (Exception e) {
+                logger.warn("Failed to re-embed stale vector for content {}, will retry after {}", contentId, reembedClaim, e);
+            }
+        }
 
-            contentVectorRepository.save(contentVector);
-            return vector;
-        } else {
-            throw new RuntimeException("Failed to generate vector: " + response.getStatusCode());
+        if (reembedded > 0) {
+            logger.info("Re-embedded {} stale content vectors", reembedded);
         }
     }
 
+    private Document claimStaleVector(MongoCollection<Document> collection) {
+        Date now = new Date();
+        return collection.findOneAndUpdate(
+                Filters.and(Filters.eq("stale", true), Filters.or(Filters.eq("reembedClaimedUntil", null), Filters.lt("reembedClaimedUntil", now))),
+                Updates.set("reembedClaimedUntil", Date.from(now.toInstant().plus(reembedClaim))));
+    }
+
     private String buildInputText(Content content) {
         ContentDetail detail = content.getDetail();
         ContentType type = content.getType();
@@ -202,8 +364,66 @@ public class VectorService {
         return inputBuilder.toString();
     }
 
+    public int backfillShortVectors() {
+        List<ContentVector> contentVectors = contentVectorRepository.findAll();
+        List<ContentVector> missingShortVectors = contentVectors.stream()
+                .filter(contentVector -> contentVector.getVector() != null)
+                .filter(contentVector -> contentVector.getShortVector() == null || contentVector.getShortVector().size() != shortDimensions)
+                .toList();
+
+        // updatedAt is left alone: the embedding itself is unchanged, so related content needn't be recomputed
+        missingShortVectors.forEach(contentVector -> contentVector.setShortVector(toShortVector(contentVector.getVector())));
+        contentVectorRepository.saveAll(missingShortVectors);
+        semanticResultCache.invalidate();
+
+        return missingShortVectors.size();
+    }
+
+    // Vectors written before filter fields and models were recorded are invisible to filtered searches until this runs
+    public int backfillFilterFields() {
+        List<ContentVector> contentVectors = contentVectorRepository.findAll();
+        Map<String, Content> contentMap = contentRepository.findAllById(contentVectors.stream().map(ContentVector::getContentId).toList()).stream()
+                .collect(Collectors.toMap(Content::getId, content -> content));
+
+        List<ContentVector> updatedVectors = contentVectors.stream()
+                .filter(contentVector -> contentMap.containsKey(contentVector.getContentId()))
+                .filter(contentVector -> applyFilterFields(contentVector, contentMap.get(contentVector.getContentId())))
+                .toList();
+
+        contentVectorRepository.saveAll(updatedVectors);
+        semanticResultCache.invalidate();
+
+        return updatedVectors.size();
+    }
+
+    // Returns whether anything changed, so only those vectors are written and get a new updatedAt
+    private boolean applyFilterFields(ContentVector contentVector, Content content) {
+        List<Object> before = asList(contentVector.getModel(), contentVector.getType(), contentVector.getStatus(),
+                contentVector.getVisibility(), contentVector.getLastEventStartTime());
+
+        // Everything stored before providers were recorded came from OpenAI
+        if (contentVector.getModel() == null) {
+            contentVector.setProvider("openai");
+            contentVector.setModel(OpenAiEmbeddingProvider.MODEL);
+        }
+        contentVector.setFilterFields(content);
+
+        List<Object> after = asList(contentVector.getModel(), contentVector.getType(), contentVector.getStatus(),
+                contentVector.getVisibility(), contentVector.getLastEventStartTime());
+        if (before.equals(after)) {
+            return false;
+        }
+
+        contentVector.setUpdatedAt(LocalDateTime.now());
+        return true;
+    }
+
     public void delete(String contentId) {
         contentVectorRepository.deleteById(contentId);
+        semanticResultCache.invalidate();
+    }
+
+    public record SearchPage(List<Content> content, String nextCursor) {
     }
 }
 
@@ -0,0 +1,94 @@
+package com.paulpladziewicz.fremontmi.app.config;
+
+import com.paulpladziewicz.fremontmi.user.CustomUserDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompactSessionAttributeCodecTest {
+
+    private static final String SECURITY_CONTEXT_KEY = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+    // Wired the same way SessionConfig hands the codec to JdkMongoSessionConverter
+    private final CompactSessionAttributeCodec codec = new CompactSessionAttributeCodec(true);
+    private final SerializingConverter serializer = new SerializingConverter(codec);
+    private final DeserializingConverter deserializer = new DeserializingConverter(codec);
+
+    @Test
+    void compactBlobRoundTrips() {
+        Map<String, Object> attributes = attributes();
+
+        byte[] blob = serializer.convert(attributes);
+
+        assertEquals(0xC5, blob[0] & 0xFF);
+        assertEquals(0x53, blob[1] & 0xFF);
+        assertAttributesMatch(attributes, (Map<?, ?>) deserializer.convert(blob));
+    }
+
+    @Test
+    void legacyJdkBlobStillDecodes() throws Exception {
+        Map<String, Object> attributes = attributes();
+
+        byte[] blob = new DefaultSerializer().serializeToByteArray(attributes);
+
+        assertAttributesMatch(attributes, (Map<?, ?>) deserializer.convert(blob));
+    }
+
+    @Test
+    void compactWritesOffStoresJdkBlobs() {
+        Map<String, Object> attributes = attributes();
+
+        byte[] blob = new SerializingConverter(new CompactSessionAttributeCodec(false)).convert(attributes);
+
+        assertNotEquals(0xC5, blob[0] & 0xFF);
+        assertAttributesMatch(attributes, (Map<?, ?>) deserializer.convert(blob));
+    }
+
+    private static void assertAttributesMatch(Map<String, Object> expected, Map<?, ?> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(expected.get("successMessage"), actual.get("successMessage"));
+        assertNull(actual.get("pending"));
+        assertEquals(expected.get("recentSearches"), actual.get("recentSearches"));
+
+        SecurityContext context = (SecurityContext) actual.get(SECURITY_CONTEXT_KEY);
+        assertEquals(expected.get(SECURITY_CONTEXT_KEY), context);
+
+        CustomUserDetails user = (CustomUserDetails) context.getAuthentication().getPrincipal();
+        assertEquals("66f1c0a4e8b3a1b2c3d4e5f6", user.getUserId());
+        assertEquals("fremont.neighbor", user.getUsername());
+        assertNull(user.getPassword());
+        assertEquals(new WebAuthenticationDetails("203.0.113.24", "8d0e4f5a"), context.getAuthentication().getDetails());
+    }
+
+    private static Map<String, Object> attributes() {
+        CustomUserDetails user = new CustomUserDetails("66f1c0a4e8b3a1b2c3d4e5f6", "fremont.neighbor", "$2a$10$abcdefghijklmnopqrstuv",
+                true, true, true, true, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER")));
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(user, "password", user.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetails("203.0.113.24", "8d0e4f5a"));
+        authentication.eraseCredentials();
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SECURITY_CONTEXT_KEY, new SecurityContextImpl(authentication));
+        attributes.put("successMessage", "Your group was created.");
+        attributes.put("pending", null);
+        // Anything the codec has no compact form for goes through JDK serialization on its own
+        attributes.put("recentSearches", new ArrayList<>(List.of("farmers market", "yoga")));
+        return attributes;
+    }
+}
@@ -0,0 +1,128 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulpladziewicz.fremontmi.discovery.VectorMath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A fixed, local corpus of content vectors plus labelled queries.
+ *
+ * Documents are read from a mongoexport of content_vectors (one JSON document per line
+ * with _id and vector). Queries are read from a JSON-lines file of
+ * {"prompt": ..., "vector": [...], "relevantIds": [...]}, see {@link SearchHistorySeeder}.
+ */
+public class BenchmarkCorpus {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<BenchmarkDocument> documents;
+    private final List<BenchmarkQuery> queries;
+
+    private BenchmarkCorpus(List<BenchmarkDocument> documents, List<BenchmarkQuery> queries) {
+        this.documents = documents;
+        this.queries = queries;
+    }
+
+    public static BenchmarkCorpus load(Path documentsPath, Path queriesPath) throws IOException {
+        List<BenchmarkDocument> documents = loadDocuments(documentsPath);
+        List<BenchmarkQuery> queries = new ArrayList<>();
+
+        for (JsonNode node : readLines(queriesPath)) {
+            Set<String> relevantIds = new HashSet<>();
+            node.path("relevantIds").forEach(id -> relevantIds.add(id.asText()));
+            queries.add(new BenchmarkQuery(node.path("prompt").asText(), readVector(node.get("vector")), relevantIds, null));
+        }
+
+        return new BenchmarkCorpus(documents, queries);
+    }
+
+    // Without labelled queries every document is used once as a query, labelled with its exact
+    // nearest neighbours. This measures how closely a strategy tracks exact search.
+    public static BenchmarkCorpus loadLeaveOneOut(Path documentsPath, int k) throws IOException {
+        List<BenchmarkDocument> documents = loadDocuments(documentsPath);
+        List<BenchmarkQuery> queries = new ArrayList<>();
+
+        for (BenchmarkDocument query : documents) {
+            Set<String> relevantIds = documents.stream()
+                    .filter(document -> !document.id().equals(query.id()))
+                    .sorted(Comparator.comparingDouble((BenchmarkDocument document) -> VectorMath.cosine(query.normalized(), document.normalized())).reversed())
+                    .limit(k)
+                    .map(BenchmarkDocument::id)
+                    .collect(Collectors.toSet());
+
+            queries.add(new BenchmarkQuery(query.id(), query.vector(), relevantIds, query.id()));
+        }
+
+        return new BenchmarkCorpus(documents, queries);
+    }
+
+    public List<BenchmarkDocument> getDocuments() {
+        return documents;
+    }
+
+    public List<BenchmarkQuery> getQueries() {
+        return queries;
+    }
+
+    private static List<BenchmarkDocument> loadDocuments(Path path) throws IOException {
+        List<BenchmarkDocument> documents = new ArrayList<>();
+
+        for (JsonNode node : readLines(path)) {
+            List<Double> vector = readVector(node.get("vector"));
+            if (vector.isEmpty()) {
+                continue;
+            }
+
+            documents.add(new BenchmarkDocument(readId(node.get("_id")), vector, VectorMath.normalize(vector)));
+        }
+
+        return documents;
+    }
+
+    static List<JsonNode> readLines(Path path) throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+
+        for (String line : Files.readAllLines(path)) {
+            if (!line.isBlank()) {
+                nodes.add(objectMapper.readTree(line));
+            }
+        }
+
+        return nodes;
+    }
+
+    // mongoexport writes ObjectIds as {"$oid": "..."}
+    static String readId(JsonNode idNode) {
+        if (idNode == null) {
+            return null;
+        }
+        return idNode.has("$oid") ? idNode.get("$oid").asText() : idNode.asText();
+    }
+
+    static List<Double> readVector(JsonNode vectorNode) {
+        List<Double> vector = new ArrayList<>();
+
+        if (vectorNode != null && vectorNode.isArray()) {
+            vectorNode.forEach(value -> vector.add(value.isObject() ? value.elements().next().asDouble() : value.asDouble()));
+        }
+
+        return vector;
+    }
+
+    public record BenchmarkDocument(String id, List<Double> vector, float[] normalized) {
+    }
+
+    // excludedId keeps a leave-one-out query from finding its own document
+    public record BenchmarkQuery(String prompt, List<Double> vector, Set<String> relevantIds, String excludedId) {
+    }
+}
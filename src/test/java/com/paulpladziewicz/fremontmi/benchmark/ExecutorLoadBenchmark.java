@@ -0,0 +1,135 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the executors AsyncConfig can build under bursty, I/O-bound load: the old fixed pool
+ * (10 core, 50 max, 100 queue), a Tomcat-sized pool of 200 platform threads, and virtual threads
+ * with and without the concurrency limit.
+ *
+ * Usage: ExecutorLoadBenchmark [bursts] [tasksPerBurst] [burstGapMillis]
+ *
+ * Each task stands in for a request or @Async job: a little CPU, then one blocking call whose
+ * latency is drawn from a mix of Mongo reads (2-20 ms), SMTP/Stripe calls (50-200 ms) and the
+ * occasional embedding request (300-900 ms).
+ */
+public class ExecutorLoadBenchmark {
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int bursts = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int tasksPerBurst = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int burstGapMillis = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.printf("%d bursts of %d tasks, %d ms apart%n%n", bursts, tasksPerBurst, burstGapMillis);
+        System.out.printf("%-32s %9s %9s %9s %9s %9s %10s%n", "executor", "completed", "rejected", "p50 ms", "p99 ms", "max ms", "wall ms");
+
+        run("pooled 10/50 + queue 100", pooled(10, 50, 100), bursts, tasksPerBurst, burstGapMillis);
+        run("pooled 200 platform threads", pooled(200, 200, Integer.MAX_VALUE), bursts, tasksPerBurst, burstGapMillis);
+        run("virtual, limit 200", virtual(200), bursts, tasksPerBurst, burstGapMillis);
+        run("virtual, unlimited", virtual(-1), bursts, tasksPerBurst, burstGapMillis);
+    }
+
+    private static void run(String name, Executor executor, int bursts, int tasksPerBurst, int burstGapMillis) throws InterruptedException {
+        Random random = new Random(42);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(bursts * tasksPerBurst);
+        long start = System.nanoTime();
+
+        for (int burst = 0; burst < bursts; burst++) {
+            for (int i = 0; i < tasksPerBurst; i++) {
+                long blockingMillis = blockingMillis(random);
+                long submittedAt = System.nanoTime();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            work(blockingMillis);
+                            latencies.add(System.nanoTime() - submittedAt);
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    rejected.incrementAndGet();
+                    done.countDown();
+                }
+            }
+            Thread.sleep(burstGapMillis);
+        }
+
+        done.await(5, TimeUnit.MINUTES);
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-32s %9d %9d %9.1f %9.1f %9.1f %10d%n", name, sorted.size(), rejected.get(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0), wallMillis);
+
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    private static Executor pooled(int core, int max, int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(max);
+        executor.setQueueCapacity(queue);
+        executor.setThreadNamePrefix("bench-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static Executor virtual(int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("bench-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    private static long blockingMillis(Random random) {
+        double roll = random.nextDouble();
+        if (roll < 0.80) {
+            return 2 + random.nextInt(19);
+        }
+        if (roll < 0.97) {
+            return 50 + random.nextInt(151);
+        }
+        return 300 + random.nextInt(601);
+    }
+
+    private static void work(long blockingMillis) {
+        long hash = 0;
+        for (int i = 0; i < 20_000; i++) {
+            hash += i * 31L;
+        }
+        sink = hash;
+        try {
+            Thread.sleep(blockingMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
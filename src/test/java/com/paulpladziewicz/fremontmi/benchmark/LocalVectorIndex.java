@@ -0,0 +1,123 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.paulpladziewicz.fremontmi.discovery.VectorMath;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * In-process stand-in for an Atlas vector index. Vectors are partitioned with a few rounds
+ * of k-means and a query scans the partitions closest to it until numCandidates vectors have
+ * been scored, so numCandidates trades recall for latency the same way it does for ANN search.
+ */
+public class LocalVectorIndex {
+
+    private final List<String> ids;
+    private final float[][] vectors;
+    private final float[][] centroids;
+    private final List<List<Integer>> partitions = new ArrayList<>();
+
+    public LocalVectorIndex(List<String> ids, float[][] vectors) {
+        if (vectors.length == 0) {
+            throw new IllegalArgumentException("No vectors to index, is the content_vectors export empty or missing its vector fields?");
+        }
+        if (ids.size() != vectors.length) {
+            throw new IllegalArgumentException("Got " + ids.size() + " ids for " + vectors.length + " vectors");
+        }
+
+        this.ids = ids;
+        this.vectors = vectors;
+
+        int partitionCount = Math.max(1, (int) Math.sqrt(vectors.length));
+        this.centroids = new float[partitionCount][];
+
+        Random random = new Random(42);
+        for (int i = 0; i < partitionCount; i++) {
+            centroids[i] = vectors[random.nextInt(vectors.length)].clone();
+        }
+
+        for (int iteration = 0; iteration < 5; iteration++) {
+            assignPartitions();
+            recomputeCentroids();
+        }
+        assignPartitions();
+    }
+
+    public List<ScoredId> search(float[] query, int limit, int numCandidates, String excludedId) {
+        List<Integer> partitionOrder = IntStream.range(0, centroids.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> VectorMath.cosine(query, centroids[i])).reversed())
+                .toList();
+
+        List<ScoredId> scored = new ArrayList<>();
+        for (int partition : partitionOrder) {
+            for (int index : partitions.get(partition)) {
+                if (!ids.get(index).equals(excludedId)) {
+                    scored.add(new ScoredId(ids.get(index), VectorMath.cosine(query, vectors[index])));
+                }
+            }
+
+            if (scored.size() >= numCandidates) {
+                break;
+            }
+        }
+
+        return scored.stream()
+                .sorted(Comparator.comparingDouble(ScoredId::cosine).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public long sizeInBytes() {
+        long dimensions = vectors.length == 0 ? 0 : vectors[0].length;
+        return (vectors.length + centroids.length) * dimensions * Float.BYTES + vectors.length * (long) Integer.BYTES;
+    }
+
+    private void assignPartitions() {
+        partitions.clear();
+        for (int i = 0; i < centroids.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        for (int index = 0; index < vectors.length; index++) {
+            int best = 0;
+            double bestScore = -2;
+
+            for (int c = 0; c < centroids.length; c++) {
+                double score = VectorMath.cosine(vectors[index], centroids[c]);
+                if (score > bestScore) {
+                    best = c;
+                    bestScore = score;
+                }
+            }
+
+            partitions.get(best).add(index);
+        }
+    }
+
+    private void recomputeCentroids() {
+        for (int c = 0; c < centroids.length; c++) {
+            List<Integer> members = partitions.get(c);
+            if (members.isEmpty()) {
+                continue;
+            }
+
+            List<Double> sum = new ArrayList<>();
+            for (int d = 0; d < centroids[c].length; d++) {
+                double total = 0;
+                for (int index : members) {
+                    total += vectors[index][d];
+                }
+                sum.add(total);
+            }
+
+            centroids[c] = VectorMath.normalize(sum);
+        }
+    }
+
+    public record ScoredId(String id, double cosine) {
+    }
+}
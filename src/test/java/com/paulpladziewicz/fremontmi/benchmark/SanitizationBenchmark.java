@@ -0,0 +1,99 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.paulpladziewicz.fremontmi.app.config.HtmlSanitizationService;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the CPU a detail page view spent sanitizing the description before descriptionHtml was
+ * rendered at write time, against reading the stored HTML.
+ *
+ * Usage: SanitizationBenchmark [iterations]
+ *
+ * Descriptions are synthetic, multi-paragraph and sized like real group and business descriptions
+ * (a few hundred to a few thousand characters, with the occasional tag that must be stripped).
+ */
+public class SanitizationBenchmark {
+
+    private static final int DESCRIPTIONS = 200;
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<String> descriptions = descriptions(new Random(42));
+        List<String> rendered = descriptions.stream().map(HtmlSanitizationService::renderDescription).toList();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long sink = 0;
+
+        sink += perRequest(descriptions, WARMUP_ITERATIONS);
+        sink += stored(rendered, WARMUP_ITERATIONS);
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        sink += perRequest(descriptions, iterations);
+        long perRequestNanos = (threads.getCurrentThreadCpuTime() - cpuStart) / iterations;
+
+        cpuStart = threads.getCurrentThreadCpuTime();
+        sink += stored(rendered, iterations);
+        long storedNanos = Math.max(1, (threads.getCurrentThreadCpuTime() - cpuStart) / iterations);
+
+        System.out.printf("%-40s %12s%n", "path", "CPU us/view");
+        System.out.printf("%-40s %12.2f%n", "sanitize per request (new Safelist)", perRequestNanos / 1000.0);
+        System.out.printf("%-40s %12.3f%n", "read stored descriptionHtml", storedNanos / 1000.0);
+        System.out.printf("%nCPU saved: %.2f ms per 1,000 detail views (%dx)%n",
+                (perRequestNanos - storedNanos) * 1000 / 1_000_000.0, perRequestNanos / storedNanos);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    // What every detail controller used to do: build a Safelist and run a full Jsoup clean
+    private static long perRequest(List<String> descriptions, int iterations) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            String description = descriptions.get(i % descriptions.size());
+            Safelist safelist = new Safelist().addTags("br");
+            sink += Jsoup.clean(description.replace("\n", "<br/>"), safelist).length();
+        }
+        return sink;
+    }
+
+    private static long stored(List<String> rendered, int iterations) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += rendered.get(i % rendered.size()).length();
+        }
+        return sink;
+    }
+
+    private static List<String> descriptions(Random random) {
+        String[] words = {"community", "weekly", "meetup", "families", "welcome", "Fremont", "park", "volunteers",
+                "music", "coffee", "kids", "garden", "trail", "library", "downtown", "local", "support", "fun"};
+        List<String> descriptions = new ArrayList<>(DESCRIPTIONS);
+
+        for (int d = 0; d < DESCRIPTIONS; d++) {
+            StringBuilder description = new StringBuilder();
+            int paragraphs = 1 + random.nextInt(5);
+
+            for (int p = 0; p < paragraphs; p++) {
+                int length = 20 + random.nextInt(80);
+                for (int w = 0; w < length; w++) {
+                    description.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                if (random.nextInt(4) == 0) {
+                    description.append("<b>bold</b> <a href=\"https://example.com\">link</a> ");
+                }
+                description.append("\n\n");
+            }
+
+            descriptions.add(description.toString());
+        }
+
+        return descriptions;
+    }
+}
@@ -0,0 +1,136 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Offline relevance and latency benchmark for semantic search settings.
+ *
+ * Usage: SearchBenchmark <content_vectors.json> [queries.jsonl]
+ *
+ * content_vectors.json is a mongoexport of content_vectors (_id and vector). queries.jsonl holds
+ * labelled queries, typically produced by {@link SearchHistorySeeder}. Without a queries file every
+ * document is used as a leave-one-out query labelled with its exact nearest neighbours.
+ *
+ * For each strategy it reports recall@k, MRR, p50/p99 latency, the size of the index structures
+ * and the heap retained after building them. Run it before and after any search change.
+ */
+public class SearchBenchmark {
+
+    private static final int LEAVE_ONE_OUT_K = 5;
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: SearchBenchmark <content_vectors.json> [queries.jsonl]");
+            System.exit(1);
+        }
+
+        BenchmarkCorpus corpus = args.length == 2
+                ? BenchmarkCorpus.load(Path.of(args[0]), Path.of(args[1]))
+                : BenchmarkCorpus.loadLeaveOneOut(Path.of(args[0]), LEAVE_ONE_OUT_K);
+
+        System.out.printf("Corpus: %d documents, %d queries%n%n", corpus.getDocuments().size(), corpus.getQueries().size());
+        System.out.printf("%-58s %9s %7s %10s %10s %10s %10s%n", "strategy", "recall@k", "MRR", "p50 (us)", "p99 (us)", "index MB", "heap MB");
+
+        for (Supplier<SearchStrategy> strategy : strategies(corpus)) {
+            run(corpus, strategy);
+        }
+    }
+
+    private static List<Supplier<SearchStrategy>> strategies(BenchmarkCorpus corpus) {
+        List<Supplier<SearchStrategy>> strategies = new ArrayList<>();
+
+        for (int numCandidates : new int[]{5, 20, 50, 100}) {
+            for (int limit : new int[]{5, 10}) {
+                for (double threshold : new double[]{0.6, 0.65, 0.7}) {
+                    strategies.add(() -> new SingleStageStrategy(corpus, Math.max(numCandidates, limit), limit, threshold));
+                }
+            }
+        }
+
+        for (int dimensions : new int[]{128, 256, 512}) {
+            for (int candidatePool : new int[]{25, 50, 100}) {
+                strategies.add(() -> new TwoStageStrategy(corpus, dimensions, candidatePool, 5, 0.65));
+            }
+        }
+
+        return strategies;
+    }
+
+    private static void run(BenchmarkCorpus corpus, Supplier<SearchStrategy> strategySupplier) {
+        long heapBefore = usedHeap();
+        SearchStrategy strategy = strategySupplier.get();
+        long heapAfter = usedHeap();
+
+        List<BenchmarkCorpus.BenchmarkQuery> queries = corpus.getQueries();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            queries.forEach(strategy::search);
+        }
+
+        long[] latencies = new long[queries.size()];
+        double recall = 0;
+        double reciprocalRank = 0;
+
+        for (int i = 0; i < queries.size(); i++) {
+            BenchmarkCorpus.BenchmarkQuery query = queries.get(i);
+
+            long start = System.nanoTime();
+            List<String> results = strategy.search(query);
+            latencies[i] = System.nanoTime() - start;
+
+            recall += recall(query, results);
+            reciprocalRank += reciprocalRank(query, results);
+        }
+
+        int count = Math.max(queries.size(), 1);
+        System.out.printf("%-58s %9.3f %7.3f %10.1f %10.1f %10.2f %10.2f%n",
+                strategy.describe(),
+                recall / count,
+                reciprocalRank / count,
+                percentile(latencies, 50),
+                percentile(latencies, 99),
+                strategy.indexSizeInBytes() / 1024.0 / 1024.0,
+                Math.max(heapAfter - heapBefore, 0) / 1024.0 / 1024.0);
+    }
+
+    private static double recall(BenchmarkCorpus.BenchmarkQuery query, List<String> results) {
+        if (query.relevantIds().isEmpty()) {
+            return results.isEmpty() ? 1 : 0;
+        }
+
+        long found = results.stream().filter(query.relevantIds()::contains).count();
+        return (double) found / query.relevantIds().size();
+    }
+
+    private static double reciprocalRank(BenchmarkCorpus.BenchmarkQuery query, List<String> results) {
+        for (int rank = 0; rank < results.size(); rank++) {
+            if (query.relevantIds().contains(results.get(rank))) {
+                return 1.0 / (rank + 1);
+            }
+        }
+        return 0;
+    }
+
+    private static double percentile(long[] nanos, int percentile) {
+        if (nanos.length == 0) {
+            return 0;
+        }
+
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,95 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a labelled queries file for {@link SearchBenchmark} from real prompts.
+ *
+ * Usage: SearchHistorySeeder <search_history.json> <queries.jsonl> [relevanceThreshold]
+ *
+ * search_history.json is a mongoexport of search_history. Each distinct prompt becomes one query,
+ * labelled with the result ids that scored above the threshold at the time it was searched. The
+ * labels describe what production returned, so review and hand-correct them before trusting
+ * recall numbers. Query vectors are fetched from the OpenAI embeddings API using OPENAI_API_KEY.
+ */
+public class SearchHistorySeeder {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: SearchHistorySeeder <search_history.json> <queries.jsonl> [relevanceThreshold]");
+            System.exit(1);
+        }
+
+        String apiKey = System.getenv("OPENAI_API_KEY");
+        if (apiKey == null || apiKey.isBlank()) {
+            System.err.println("OPENAI_API_KEY must be set to embed the prompts");
+            System.exit(1);
+        }
+
+        double relevanceThreshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.65;
+
+        Map<String, Set<String>> relevantIdsByPrompt = new LinkedHashMap<>();
+        for (JsonNode history : BenchmarkCorpus.readLines(Path.of(args[0]))) {
+            String prompt = history.path("prompt").asText().trim().toLowerCase();
+            if (prompt.isEmpty()) {
+                continue;
+            }
+
+            Set<String> relevantIds = relevantIdsByPrompt.computeIfAbsent(prompt, key -> new LinkedHashSet<>());
+            for (JsonNode result : history.path("allResultsWithScores")) {
+                JsonNode idNode = result.has("_id") ? result.get("_id") : result.get("id");
+                if (result.path("score").asDouble() > relevanceThreshold) {
+                    relevantIds.add(BenchmarkCorpus.readId(idNode));
+                }
+            }
+        }
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        List<String> lines = new ArrayList<>();
+
+        for (Map.Entry<String, Set<String>> entry : relevantIdsByPrompt.entrySet()) {
+            Map<String, Object> query = new LinkedHashMap<>();
+            query.put("prompt", entry.getKey());
+            query.put("vector", embed(httpClient, apiKey, entry.getKey()));
+            query.put("relevantIds", entry.getValue());
+            lines.add(objectMapper.writeValueAsString(query));
+        }
+
+        Files.write(Path.of(args[1]), lines);
+        System.out.printf("Wrote %d queries to %s%n", lines.size(), args[1]);
+    }
+
+    private static JsonNode embed(HttpClient httpClient, String apiKey, String prompt) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("model", "text-embedding-3-large", "input", prompt));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("https://api.openai.com/v1/embeddings"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to embed prompt '" + prompt + "': " + response.statusCode());
+        }
+
+        return objectMapper.readTree(response.body()).path("data").get(0).path("embedding");
+    }
+}
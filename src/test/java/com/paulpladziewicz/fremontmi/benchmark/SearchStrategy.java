@@ -0,0 +1,17 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import java.util.List;
+
+public interface SearchStrategy {
+
+    String describe();
+
+    List<String> search(BenchmarkCorpus.BenchmarkQuery query);
+
+    long indexSizeInBytes();
+
+    // Atlas reports cosine similarity as (1 + cosine) / 2, which is the scale relevance thresholds use
+    static double toSearchScore(double cosine) {
+        return (1 + cosine) / 2;
+    }
+}
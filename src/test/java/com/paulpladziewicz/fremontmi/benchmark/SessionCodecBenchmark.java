@@ -0,0 +1,153 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.paulpladziewicz.fremontmi.app.config.CompactSessionAttributeCodec;
+import com.paulpladziewicz.fremontmi.user.CustomUserDetails;
+
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.servlet.FlashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the attr blob JdkMongoSessionConverter stores per session when the attribute map is
+ * written with plain JDK serialization against CompactSessionAttributeCodec: encoded size, and CPU
+ * to encode and decode. The near-cache decodes a copy on every request, so decode cost is paid
+ * per request even when Mongo isn't touched.
+ *
+ * Usage: SessionCodecBenchmark [iterations]
+ *
+ * Sessions are shaped like real ones after form login: a SecurityContext holding CustomUserDetails
+ * with one or two roles and WebAuthenticationDetails, optionally with a pending flash map.
+ */
+public class SessionCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        DefaultSerializer jdkSerializer = new DefaultSerializer();
+        DefaultDeserializer jdkDeserializer = new DefaultDeserializer(SessionCodecBenchmark.class.getClassLoader());
+        CompactSessionAttributeCodec codec = new CompactSessionAttributeCodec(true);
+
+        Map<String, Map<String, Object>> sessions = Map.of(
+                "logged in", Map.of(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext(List.of("ROLE_USER"))),
+                "admin", Map.of(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext(List.of("ROLE_ADMIN", "ROLE_USER"))),
+                "logged in + flash", withFlashMap(securityContext(List.of("ROLE_USER")))
+        );
+
+        System.out.printf("%-20s %-8s %10s %14s %14s%n", "session", "codec", "bytes", "encode us", "decode us");
+        for (Map.Entry<String, Map<String, Object>> session : sessions.entrySet()) {
+            byte[] jdk = encode(jdkSerializer::serialize, session.getValue());
+            byte[] compact = encode(codec::serialize, session.getValue());
+
+            verify(session.getKey(), codec.deserialize(new ByteArrayInputStream(compact)), session.getValue());
+            // Sessions stored before the codec must still decode through it
+            verify(session.getKey() + " (legacy)", codec.deserialize(new ByteArrayInputStream(jdk)), session.getValue());
+
+            report(session.getKey(), "jdk", jdk.length, encodeNanos(jdkSerializer::serialize, session.getValue(), iterations),
+                    decodeNanos(jdkDeserializer::deserialize, jdk, iterations));
+            report(session.getKey(), "compact", compact.length, encodeNanos(codec::serialize, session.getValue(), iterations),
+                    decodeNanos(codec::deserialize, compact, iterations));
+        }
+    }
+
+    private static void report(String session, String codec, int bytes, double encodeNanos, double decodeNanos) {
+        System.out.printf("%-20s %-8s %10d %14.2f %14.2f%n", session, codec, bytes, encodeNanos / 1000, decodeNanos / 1000);
+    }
+
+    private static double encodeNanos(Encoder encoder, Map<String, Object> attributes, int iterations) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long sink = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += encode(encoder, attributes).length;
+        }
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += encode(encoder, attributes).length;
+        }
+        long elapsed = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        return sink == 0 ? 0 : (double) elapsed / iterations;
+    }
+
+    private static double decodeNanos(Decoder decoder, byte[] bytes, int iterations) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long sink = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += ((Map<?, ?>) decoder.decode(new ByteArrayInputStream(bytes))).size();
+        }
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += ((Map<?, ?>) decoder.decode(new ByteArrayInputStream(bytes))).size();
+        }
+        long elapsed = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        return sink == 0 ? 0 : (double) elapsed / iterations;
+    }
+
+    private static byte[] encode(Encoder encoder, Map<String, Object> attributes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        encoder.encode(new HashMap<>(attributes), out);
+        return out.toByteArray();
+    }
+
+    private static void verify(String session, Object decoded, Map<String, Object> expected) {
+        Map<?, ?> attributes = (Map<?, ?>) decoded;
+        SecurityContext context = (SecurityContext) attributes.get(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        SecurityContext original = (SecurityContext) expected.get(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        CustomUserDetails user = (CustomUserDetails) context.getAuthentication().getPrincipal();
+        CustomUserDetails originalUser = (CustomUserDetails) original.getAuthentication().getPrincipal();
+
+        if (!context.equals(original) || !user.getUserId().equals(originalUser.getUserId()) || attributes.size() != expected.size()) {
+            throw new IllegalStateException("Round trip changed the " + session + " session");
+        }
+    }
+
+    private static SecurityContext securityContext(List<String> roles) {
+        CustomUserDetails user = new CustomUserDetails("66f1c0a4e8b3a1b2c3d4e5f6", "fremont.neighbor", "$2a$10$abcdefghijklmnopqrstuv",
+                true, true, true, true, roles.stream().map(SimpleGrantedAuthority::new).toList());
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(user, "password", user.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetails("203.0.113.24", "8d0e4f5a-2b1c-4c3d-9e8f-7a6b5c4d3e2f"));
+        // ProviderManager erases credentials after login, so stored sessions never carry them
+        authentication.eraseCredentials();
+        return new SecurityContextImpl(authentication);
+    }
+
+    private static Map<String, Object> withFlashMap(SecurityContext context) {
+        FlashMap flashMap = new FlashMap();
+        flashMap.put("successMessage", "Your group was created.");
+        flashMap.setTargetRequestPath("/my/groups");
+        flashMap.startExpirationPeriod(180);
+
+        return Map.of(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context,
+                "org.springframework.web.servlet.support.SessionFlashMapManager.FLASH_MAPS", new ArrayList<>(List.of(flashMap)));
+    }
+
+    private interface Encoder {
+        void encode(Object object, ByteArrayOutputStream out) throws IOException;
+    }
+
+    private interface Decoder {
+        Object decode(ByteArrayInputStream in) throws IOException;
+    }
+}
@@ -0,0 +1,44 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.paulpladziewicz.fremontmi.discovery.VectorMath;
+
+import java.util.List;
+
+/**
+ * Mirrors the original VectorService search: one vector search over the full vectors,
+ * then a relevance threshold on the scores.
+ */
+public class SingleStageStrategy implements SearchStrategy {
+
+    private final int numCandidates;
+    private final int limit;
+    private final double relevanceThreshold;
+    private final LocalVectorIndex index;
+
+    public SingleStageStrategy(BenchmarkCorpus corpus, int numCandidates, int limit, double relevanceThreshold) {
+        this.numCandidates = numCandidates;
+        this.limit = limit;
+        this.relevanceThreshold = relevanceThreshold;
+        this.index = new LocalVectorIndex(
+                corpus.getDocuments().stream().map(BenchmarkCorpus.BenchmarkDocument::id).toList(),
+                corpus.getDocuments().stream().map(BenchmarkCorpus.BenchmarkDocument::normalized).toArray(float[][]::new));
+    }
+
+    @Override
+    public String describe() {
+        return String.format("single-stage numCandidates=%d limit=%d threshold=%.2f", numCandidates, limit, relevanceThreshold);
+    }
+
+    @Override
+    public List<String> search(BenchmarkCorpus.BenchmarkQuery query) {
+        return index.search(VectorMath.normalize(query.vector()), limit, numCandidates, query.excludedId()).stream()
+                .filter(result -> SearchStrategy.toSearchScore(result.cosine()) > relevanceThreshold)
+                .map(LocalVectorIndex.ScoredId::id)
+                .toList();
+    }
+
+    @Override
+    public long indexSizeInBytes() {
+        return index.sizeInBytes();
+    }
+}
@@ -0,0 +1,59 @@
+package com.paulpladziewicz.fremontmi.benchmark;
+
+import com.paulpladziewicz.fremontmi.discovery.VectorMath;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mirrors the two-stage VectorService search: candidates from truncated, re-normalized
+ * vectors, reranked with the full vectors.
+ */
+public class TwoStageStrategy implements SearchStrategy {
+
+    private final int dimensions;
+    private final int candidatePool;
+    private final int limit;
+    private final double relevanceThreshold;
+    private final LocalVectorIndex shortIndex;
+    private final Map<String, float[]> fullVectors = new HashMap<>();
+
+    public TwoStageStrategy(BenchmarkCorpus corpus, int dimensions, int candidatePool, int limit, double relevanceThreshold) {
+        this.dimensions = dimensions;
+        this.candidatePool = candidatePool;
+        this.limit = limit;
+        this.relevanceThreshold = relevanceThreshold;
+        this.shortIndex = new LocalVectorIndex(
+                corpus.getDocuments().stream().map(BenchmarkCorpus.BenchmarkDocument::id).toList(),
+                corpus.getDocuments().stream().map(document -> VectorMath.normalize(document.vector(), dimensions)).toArray(float[][]::new));
+
+        corpus.getDocuments().forEach(document -> fullVectors.put(document.id(), document.normalized()));
+    }
+
+    @Override
+    public String describe() {
+        return String.format("two-stage dims=%d pool=%d limit=%d threshold=%.2f", dimensions, candidatePool, limit, relevanceThreshold);
+    }
+
+    @Override
+    public List<String> search(BenchmarkCorpus.BenchmarkQuery query) {
+        float[] fullQuery = VectorMath.normalize(query.vector());
+        float[] shortQuery = VectorMath.normalize(query.vector(), dimensions);
+
+        return shortIndex.search(shortQuery, candidatePool, candidatePool * 4, query.excludedId()).stream()
+                .map(candidate -> new LocalVectorIndex.ScoredId(candidate.id(), VectorMath.cosine(fullQuery, fullVectors.get(candidate.id()))))
+                .sorted(Comparator.comparingDouble(LocalVectorIndex.ScoredId::cosine).reversed())
+                .limit(limit)
+                .filter(result -> SearchStrategy.toSearchScore(result.cosine()) > relevanceThreshold)
+                .map(LocalVectorIndex.ScoredId::id)
+                .toList();
+    }
+
+    // The full vectors are still needed for reranking, they just are not indexed
+    @Override
+    public long indexSizeInBytes() {
+        return shortIndex.sizeInBytes() + fullVectors.values().stream().mapToLong(vector -> (long) vector.length * Float.BYTES).sum();
+    }
+}
@@ -0,0 +1,97 @@
+package com.paulpladziewicz.fremontmi.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedPageTest {
+
+    private static final String RENDERED_TOKEN = "rendered-token-1234";
+
+    // A different length from the rendered token, so stored block lengths and the gzip trailer size are exercised
+    private static final String REQUEST_TOKEN = "request-token";
+
+    @Test
+    void pageWithoutTokenIsServedUnchanged() throws IOException {
+        String body = "<html><body><h1>Groups</h1></body></html>";
+
+        CachedPage page = page(body, RENDERED_TOKEN);
+
+        assertFalse(page.hasCsrfToken());
+        assertSplicedAndGzipMatch(page, body);
+    }
+
+    @Test
+    void singleTokenIsReplaced() throws IOException {
+        CachedPage page = page("<form><input name=\"_csrf\" value=\"" + RENDERED_TOKEN + "\"></form>", RENDERED_TOKEN);
+
+        assertTrue(page.hasCsrfToken());
+        assertSplicedAndGzipMatch(page, "<form><input name=\"_csrf\" value=\"" + REQUEST_TOKEN + "\"></form>");
+    }
+
+    @Test
+    void severalTokensIncludingEmptySegmentsAreReplaced() throws IOException {
+        // Leading, trailing and adjacent tokens leave empty segments at the start, middle and end
+        String template = "%s<meta content=\"%s\"><form value=\"%s\"></form>%s%s";
+
+        CachedPage page = page(template.formatted(RENDERED_TOKEN, RENDERED_TOKEN, RENDERED_TOKEN, RENDERED_TOKEN, RENDERED_TOKEN), RENDERED_TOKEN);
+
+        assertSplicedAndGzipMatch(page, template.formatted(REQUEST_TOKEN, REQUEST_TOKEN, REQUEST_TOKEN, REQUEST_TOKEN, REQUEST_TOKEN));
+    }
+
+    @Test
+    void emptyBodyProducesValidGzip() throws IOException {
+        assertSplicedAndGzipMatch(page("", RENDERED_TOKEN), "");
+    }
+
+    @Test
+    void pageRenderedWithoutTokenIsNotSplit() throws IOException {
+        String body = "<p>" + RENDERED_TOKEN + "</p>";
+
+        CachedPage page = page(body, null);
+
+        assertFalse(page.hasCsrfToken());
+        assertSplicedAndGzipMatch(page, body);
+    }
+
+    @Test
+    void largeIncompressibleSegmentsSurviveSyncFlush() throws IOException {
+        // Segments that deflate to more than the 8KB flush buffer
+        byte[] noise = new byte[40_000];
+        new Random(7).nextBytes(noise);
+        String filler = Base64.getEncoder().encodeToString(noise);
+
+        CachedPage page = page(filler + RENDERED_TOKEN + filler + RENDERED_TOKEN, RENDERED_TOKEN);
+
+        assertSplicedAndGzipMatch(page, filler + REQUEST_TOKEN + filler + REQUEST_TOKEN);
+    }
+
+    private static CachedPage page(String body, String csrfToken) {
+        return CachedPage.of("/groups", ContentType.GROUP, "text/html;charset=UTF-8", body.getBytes(StandardCharsets.UTF_8), csrfToken);
+    }
+
+    private static void assertSplicedAndGzipMatch(CachedPage page, String expected) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        page.writeTo(raw, REQUEST_TOKEN, false);
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        page.writeTo(gzip, REQUEST_TOKEN, true);
+
+        assertEquals(expected, raw.toString(StandardCharsets.UTF_8));
+        // GZIPInputStream checks the CRC and length in the trailer, so a wrong trailer fails here too
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))) {
+            assertArrayEquals(raw.toByteArray(), in.readAllBytes());
+        }
+    }
+}